@@ -0,0 +1,68 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.codesourcery.jsonparser.Parser;
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.util.ASTPrinter;
+
+/**
+ * Renders a parsed AST back to JSON text.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ASTPrinterBenchmark
+{
+    @Param({Documents.SMALL,Documents.MEDIUM,Documents.LARGE,Documents.SKILLTREE})
+    public String document;
+
+    @Param({"false","true"})
+    public boolean prettyPrint;
+
+    private ASTNode ast;
+    private ASTPrinter printer;
+
+    @Setup
+    public void setup()
+    {
+        ast = new Parser().parse( Documents.get( document ) );
+        printer = new ASTPrinter();
+        printer.setPrettyPrint( prettyPrint );
+    }
+
+    @Benchmark
+    public String print() {
+        return printer.print( ast );
+    }
+}
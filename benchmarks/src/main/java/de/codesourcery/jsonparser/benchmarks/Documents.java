@@ -0,0 +1,161 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.benchmarks;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import de.codesourcery.jsonparser.Parser;
+import de.codesourcery.jsonparser.ast.ASTNode;
+
+/**
+ * Benchmark inputs.
+ *
+ * The synthetic documents are generated from a fixed seed so that runs are comparable,
+ * <code>skilltree</code> is the real-world document shipped with the library.
+ */
+public final class Documents
+{
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String LARGE = "large";
+    public static final String SKILLTREE = "skilltree";
+
+    private static final String SKILLTREE_CLASSPATH = "/skilltree.json";
+
+    private static final String[] WORDS = { "alpha", "beta", "gamma", "delta", "epsilon",
+            "zeta", "eta", "theta", "iota", "kappa", "lambda", "mu" };
+
+    private Documents() {
+    }
+
+    public static String get(String name)
+    {
+        switch( name )
+        {
+            case SMALL:     return generate( 1 , 8 );
+            case MEDIUM:    return generate( 50, 16 );
+            case LARGE:     return generate( 5000, 16 );
+            case SKILLTREE: return skillTree();
+            default:
+                throw new IllegalArgumentException( "Unknown document: "+name );
+        }
+    }
+
+    /**
+     * Generates an object holding <code>records</code> objects with <code>fields</code>
+     * members each, mixing all JSON value types and placeholder expressions.
+     */
+    public static String generate(int records,int fields)
+    {
+        final Random rnd = new Random( 0xdeadbeefL );
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append( "{\"version\":3,\"records\":[" );
+        for ( int i = 0 ; i < records ; i++ )
+        {
+            if ( i > 0 ) {
+                buffer.append( ',' );
+            }
+            buffer.append( "{\"id\":" ).append( i );
+            for ( int j = 0 ; j < fields ; j++ )
+            {
+                buffer.append( ",\"" ).append( WORDS[ j % WORDS.length ] ).append( j ).append( "\":" );
+                switch( j % 8 )
+                {
+                    case 0: buffer.append( rnd.nextInt( 100000 ) ); break;
+                    case 1: buffer.append( rnd.nextDouble() * 1000 ); break;
+                    case 2: buffer.append( rnd.nextBoolean() ); break;
+                    case 3: buffer.append( "null" ); break;
+                    case 4: buffer.append( "\"" ).append( sentence( rnd ) ).append( "\"" ); break;
+                    case 5: buffer.append( "\"Hello ${user}, you have ${count} new messages\"" ); break;
+                    case 6:
+                        buffer.append( '[' );
+                        for ( int k = 0 , len = 1 + rnd.nextInt( 10 ) ; k < len ; k++ ) {
+                            buffer.append( k > 0 ? "," : "" ).append( rnd.nextInt( 1000 ) );
+                        }
+                        buffer.append( ']' );
+                        break;
+                    default:
+                        buffer.append( "{\"name\":\"" ).append( WORDS[ rnd.nextInt( WORDS.length ) ] )
+                            .append( "\",\"escaped\":\"tab\\tquote\\\"\\u00e4\"}" );
+                }
+            }
+            buffer.append( '}' );
+        }
+        buffer.append( "]}" );
+        return buffer.toString();
+    }
+
+    private static String sentence(Random rnd)
+    {
+        final StringBuilder buffer = new StringBuilder();
+        for ( int i = 0 , len = 3 + rnd.nextInt( 8 ) ; i < len ; i++ ) {
+            buffer.append( i > 0 ? " " : "" ).append( WORDS[ rnd.nextInt( WORDS.length ) ] );
+        }
+        return buffer.toString();
+    }
+
+    public static String skillTree()
+    {
+        try ( InputStream in = Documents.class.getResourceAsStream( SKILLTREE_CLASSPATH ) )
+        {
+            if ( in == null ) {
+                throw new FileNotFoundException( "Failed to open classpath:"+SKILLTREE_CLASSPATH );
+            }
+            return new String( in.readAllBytes() , StandardCharsets.UTF_8 );
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * Returns all <code>sd</code> effect strings from the skill tree that
+     * the POE parser accepts.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String> skillTreeEffects()
+    {
+        final ASTNode ast = new Parser().parse( skillTree() );
+        final Map<String,Object> nodes = (Map<String,Object>) ((Map<String,Object>) ast.toJavaObject()).get( "nodes" );
+        final List<String> result = new ArrayList<>();
+        for ( Object node : nodes.values() )
+        {
+            // toJavaObject() turns JSON arrays into Java arrays
+            final Object[] effects = (Object[]) ((Map<String,Object>) node).get( "sd" );
+            if ( effects == null ) {
+                continue;
+            }
+            for ( Object effect : effects )
+            {
+                try {
+                    new de.codesourcery.jsonparser.poe.Parser().parse( (String) effect );
+                    result.add( (String) effect );
+                } catch(Exception e) {
+                    // only benchmark effects that parse
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.codesourcery.jsonparser.CursorLexer;
+import de.codesourcery.jsonparser.Lexer;
+import de.codesourcery.jsonparser.Token;
+import de.codesourcery.jsonparser.Token.TokenType;
+import de.codesourcery.jsonparser.util.StringScanner;
+
+/**
+ * Tokenizes a whole document, using both the token-allocating {@link Lexer}
+ * and the allocation-free {@link CursorLexer}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark
+{
+    @Param({Documents.SMALL,Documents.MEDIUM,Documents.LARGE,Documents.SKILLTREE})
+    public String document;
+
+    private String json;
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Setup
+    public void setup() {
+        json = Documents.get( document );
+    }
+
+    @Benchmark
+    public void lexer(Blackhole bh)
+    {
+        final Lexer lexer = new Lexer( new StringScanner( json ) );
+        while ( ! lexer.eof() ) {
+            final Token tok = lexer.next();
+            bh.consume( tok );
+        }
+    }
+
+    @Benchmark
+    public void cursorLexer(Blackhole bh)
+    {
+        final CursorLexer lexer = new CursorLexer( new StringScanner( json ) );
+        while ( ! lexer.eof() ) 
+        {
+            bh.consume( lexer.type() );
+            if ( lexer.type() == TokenType.DOUBLE_QUOTE ) 
+            {
+                // string contents are not tokens, they need to be read like JSONEventReader does
+                buffer.setLength( 0 );
+                lexer.readString( buffer , true );
+                bh.consume( buffer );
+            } else {
+                lexer.advance();
+            }
+        }
+    }
+}
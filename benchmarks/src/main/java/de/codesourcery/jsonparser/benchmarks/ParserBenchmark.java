@@ -0,0 +1,69 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.codesourcery.jsonparser.Parser;
+import de.codesourcery.jsonparser.ast.ASTNode;
+
+/**
+ * Parses a whole document into an AST, once with a fresh {@link Parser}
+ * per document and once with a recycled instance.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark
+{
+    @Param({Documents.SMALL,Documents.MEDIUM,Documents.LARGE,Documents.SKILLTREE})
+    public String document;
+
+    private String json;
+    private Parser parser;
+
+    @Setup
+    public void setup()
+    {
+        json = Documents.get( document );
+        parser = new Parser();
+    }
+
+    @Benchmark
+    public ASTNode parse() {
+        return new Parser().parse( json );
+    }
+
+    @Benchmark
+    public ASTNode parseReused() {
+        return parser.parse( json );
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.codesourcery.jsonparser.Identifier;
+import de.codesourcery.jsonparser.Parser;
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+
+/**
+ * Resolves placeholders in all string literals of a document.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubstitutionBenchmark
+{
+    @Param({Documents.SMALL,Documents.MEDIUM,Documents.LARGE,Documents.SKILLTREE})
+    public String document;
+
+    private final List<StringLiteral> literals = new ArrayList<>();
+    private Function<Identifier,String> resolver;
+
+    @Setup
+    public void setup()
+    {
+        literals.clear();
+        collect( new Parser().parse( Documents.get( document ) ) );
+
+        final Map<String,String> values = new HashMap<>();
+        values.put( "user" , "John Doe" );
+        values.put( "count" , "42" );
+        resolver = id -> values.get( id.name );
+    }
+
+    private void collect(ASTNode node)
+    {
+        if ( node instanceof StringLiteral ) {
+            literals.add( (StringLiteral) node );
+        }
+        for ( int i = 0 , len = node.childCount() ; i < len ; i++ ) {
+            collect( node.child( i ) );
+        }
+    }
+
+    @Benchmark
+    public void getSubstitutedValue(Blackhole bh)
+    {
+        for ( int i = 0 , len = literals.size() ; i < len ; i++ ) {
+            bh.consume( literals.get( i ).getSubstitutedValue( resolver ) );
+        }
+    }
+}
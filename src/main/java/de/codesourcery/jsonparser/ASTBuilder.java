@@ -0,0 +1,168 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.codesourcery.jsonparser.JSONEventReader.Event;
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.ASTNodeImpl;
+import de.codesourcery.jsonparser.ast.BooleanLiteral;
+import de.codesourcery.jsonparser.ast.JSONArray;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NullLiteral;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.PlaceholderExpression;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+import de.codesourcery.jsonparser.util.StringPool;
+
+/**
+ * Builds AST nodes from the events returned by a {@link JSONEventReader}.
+ */
+public class ASTBuilder
+{
+    // objects and arrays that are currently being built
+    private final List<ASTNodeImpl> containers = new ArrayList<>();
+    // keys of object members whose values are currently being built
+    private final List<StringLiteral> keys = new ArrayList<>();
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private StringPool stringPool;
+    private boolean poolStringValues;
+
+    private CharSequence source;
+
+    /**
+     * Reads the next value from an event reader and returns it as an AST.
+     *
+     * When the next event starts an object or array, all events up to and including 
+     * the matching end event are consumed.
+     */
+    public ASTNode build(JSONEventReader reader) 
+    {
+        containers.clear();
+        keys.clear();
+        while ( true ) 
+        {
+            final ASTNode value;
+            final Event event = reader.next();
+            switch( event ) 
+            {
+                case START_OBJECT:
+                    containers.add( new JSONObject() );
+                    continue;
+                case START_ARRAY:
+                    containers.add( new JSONArray() );
+                    continue;
+                case KEY:
+                    keys.add( new StringLiteral( stringPool == null ? reader.getText() : stringPool.get( reader.getTextBuffer() ) ) );
+                    continue;
+                case END_OBJECT:
+                case END_ARRAY:
+                    value = containers.remove( containers.size() - 1 );
+                    break;
+                case STRING:
+                    value = string( reader );
+                    break;
+                case NUMBER:
+                    value = number( reader );
+                    break;
+                case BOOLEAN:
+                    value = new BooleanLiteral( reader.getBoolean() );
+                    break;
+                case NULL:
+                    value = new NullLiteral();
+                    break;
+                case PLACEHOLDER:
+                    value = new PlaceholderExpression( reader.getPlaceholder() );
+                    break;
+                case END_DOCUMENT:
+                    throw new IllegalStateException("No more values to read");
+                default:
+                    throw new RuntimeException("Internal error, unhandled event "+event);
+            }
+            if ( containers.isEmpty() ) {
+                return value;
+            }
+            final ASTNodeImpl parent = containers.get( containers.size() - 1 );
+            if ( parent instanceof JSONObject ) {
+                parent.add( new KeyValue( keys.remove( keys.size() - 1 ) , value ) );
+            } else {
+                parent.add( value );
+            }
+        }
+    }
+
+    private StringLiteral string(JSONEventReader reader) 
+    {
+        if ( poolStringValues ) {
+            return new StringLiteral( stringPool.get( reader.getTextBuffer() ) );
+        }
+        if ( source != null ) {
+            return StringLiteral.fromSource( source , reader.getTextStart() , reader.getTextEnd() );
+        }
+        return new StringLiteral( reader.getText() );
+    }
+
+    private NumberLiteral number(JSONEventReader reader) 
+    {
+        if ( reader.isLong() ) 
+        {
+            final long value = reader.getLong();
+            buffer.setLength( 0 );
+            buffer.append( value );
+            return new NumberLiteral( value , reader.textEquals( buffer ) ? null : reader.getText() );
+        } 
+        if ( reader.isIntegral() ) 
+        {
+            final String text = reader.getText();
+            return new NumberLiteral( new BigInteger( text ) , text );
+        } 
+        final double value = reader.getDouble();
+        buffer.setLength( 0 );
+        buffer.append( value );
+        return new NumberLiteral( value , reader.textEquals( buffer ) ? null : reader.getText() );
+    }
+
+    /**
+     * Sets the pool used to share the strings of object keys and, optionally, string values.
+     * 
+     * @param stringPool pool or <code>null</code> to not share strings
+     * @param poolStringValues whether to also pool string values (only values up to the pool's maximum length are shared)
+     */
+    public void setStringPool(StringPool stringPool,boolean poolStringValues)
+    {
+        this.stringPool = stringPool;
+        this.poolStringValues = stringPool != null && poolStringValues;
+    }
+
+    /**
+     * Sets the immutable character sequence the reader's input comes from.
+     * 
+     * String values are then created as slices of the source that are only decoded when accessed.
+     * The reader's offsets must be offsets into the source.
+     * 
+     * @param source source or <code>null</code> to copy string values
+     */
+    public void setSource(CharSequence source)
+    {
+        this.source = source;
+    }
+}
@@ -0,0 +1,388 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import de.codesourcery.jsonparser.Token.TokenType;
+import de.codesourcery.jsonparser.util.EscapeSequences;
+import de.codesourcery.jsonparser.util.MyParseException;
+import de.codesourcery.jsonparser.util.NumberAccumulator;
+
+public class CursorLexer implements ICursorLexer
+{
+    private IScanner scanner;
+
+    private static final int DEFAULT_TEXT_LENGTH = 32;
+
+    private char[] text = new char[ DEFAULT_TEXT_LENGTH ];
+    private int length;
+
+    private TokenType type;
+    private int start;
+    // offset of the current token including any skipped whitespace in front of it
+    private int whitespaceStart;
+
+    private boolean ignoreWhitespace = true;
+
+    private final NumberAccumulator number = new NumberAccumulator();
+
+    public CursorLexer(IScanner scanner)
+    {
+        reset( scanner );
+    }
+
+    /**
+     * Resets this lexer to read tokens from another scanner, reusing its buffers.
+     */
+    public void reset(IScanner scanner) 
+    {
+        this.scanner = scanner;
+        this.ignoreWhitespace = true;
+        parse();
+    }
+
+    /**
+     * Drops the reference to the current scanner, buffers are kept for reuse by {@link #reset(IScanner)}
+     * unless they grew larger than {@link Parser#MAX_RETAINED_CAPACITY}.
+     */
+    void release() 
+    {
+        this.scanner = null;
+        if ( text.length > Parser.MAX_RETAINED_CAPACITY ) {
+            text = new char[ DEFAULT_TEXT_LENGTH ];
+        }
+    }
+
+    private void append(char c) 
+    {
+        if ( length == text.length ) 
+        {
+            final char[] tmp = new char[ text.length * 2 ];
+            System.arraycopy( text , 0 , tmp , 0 , length );
+            text = tmp;
+        }
+        text[ length++ ] = c;
+    }
+
+    private static TokenType punctuation(char c) 
+    {
+        switch( c ) 
+        {
+            case '.': return TokenType.DOT;
+            case '-': return TokenType.MINUS;
+            case ',': return TokenType.COMMA;
+            case ':': return TokenType.COLON;
+            case '\\': return TokenType.BACKSLASH;
+            case '{': return TokenType.CURLY_BRACE_OPEN;
+            case '[': return TokenType.ANGLE_BRACKETS_OPEN;
+            case ']': return TokenType.ANGLE_BRACKETS_CLOSE;
+            case '}': return TokenType.CURLY_BRACE_CLOSE;
+            case '$': return TokenType.DOLLAR;
+            case '"': return TokenType.DOUBLE_QUOTE;
+            default:
+                return null;
+        }
+    }
+
+    private void parse() 
+    {
+        length = 0;
+        whitespaceStart = start = scanner.offset();
+
+        while ( ! scanner.eof() && Character.isWhitespace( scanner.peek() ) ) 
+        {
+            final char c = scanner.next();
+            if ( ! ignoreWhitespace ) {
+                append( c );
+            }
+        }
+
+        if ( length > 0 ) 
+        {
+            type = TokenType.WHITESPACE;
+            return;
+        }
+
+        start = scanner.offset();
+        if ( scanner.eof() ) 
+        {
+            type = TokenType.EOF;
+            return;
+        }
+
+        final char first = scanner.peek();
+        if ( first == '-' || isDigit( first ) ) 
+        {
+            parseNumber();
+            return;
+        }
+
+        final TokenType t = punctuation( first );
+        if ( t != null ) 
+        {
+            append( scanner.next() );
+            type = t;
+            return;
+        }
+
+        while ( ! scanner.eof() ) 
+        {
+            final char c = scanner.peek();
+            if ( Character.isWhitespace( c ) || punctuation( c ) != null ) {
+                break;
+            }
+            append( scanner.next() );
+        }
+        type = wordType();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private boolean nextIs(char c) {
+        return ! scanner.eof() && scanner.peek() == c;
+    }
+
+    private void expectDigit() 
+    {
+        if ( scanner.eof() ) {
+            throw new MyParseException("Expected digits but got EOF",scanner.offset());
+        }
+        if ( ! isDigit( scanner.peek() ) ) {
+            throw new MyParseException("Expected digits but got '"+scanner.peek()+"'",scanner.offset());
+        }
+    }
+
+    private void parseNumber() 
+    {
+        number.reset();
+        if ( scanner.peek() == '-' ) 
+        {
+            append( scanner.next() );
+            number.setNegative();
+        }
+        expectDigit();
+        while ( ! scanner.eof() && isDigit( scanner.peek() ) ) 
+        {
+            final char c = scanner.next();
+            append( c );
+            number.integerDigit( c );
+        }
+        if ( nextIs( '.' ) ) 
+        {
+            append( scanner.next() );
+            expectDigit();
+            while ( ! scanner.eof() && isDigit( scanner.peek() ) ) 
+            {
+                final char c = scanner.next();
+                append( c );
+                number.fractionDigit( c );
+            }
+        }
+        if ( nextIs( 'e' ) || nextIs( 'E' ) ) 
+        {
+            append( scanner.next() );
+            if ( nextIs( '+' ) || nextIs( '-' ) ) 
+            {
+                final char c = scanner.next();
+                append( c );
+                if ( c == '-' ) {
+                    number.setNegativeExponent();
+                }
+            }
+            expectDigit();
+            while ( ! scanner.eof() && isDigit( scanner.peek() ) ) 
+            {
+                final char c = scanner.next();
+                append( c );
+                number.exponentDigit( c );
+            }
+        }
+        type = TokenType.NUMBER;
+    }
+
+    // numbers never get here, they are lexed by parseNumber()
+    private TokenType wordType() 
+    {
+        if ( textEquals( "true" ) ) {
+            return TokenType.TRUE;
+        }
+        if ( textEquals( "false" ) ) {
+            return TokenType.FALSE;
+        }
+        if ( textEquals( "null" ) ) {
+            return TokenType.NULL;
+        }
+        return TokenType.TEXT;
+    }
+
+    private boolean textEquals(String s) 
+    {
+        if ( s.length() != length ) {
+            return false;
+        }
+        for ( int i = 0 ; i < length ; i++ ) 
+        {
+            if ( text[i] != s.charAt( i ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public TokenType type()
+    {
+        return type;
+    }
+
+    @Override
+    public boolean is(TokenType t)
+    {
+        return type == t;
+    }
+
+    @Override
+    public int start()
+    {
+        return start;
+    }
+
+    @Override
+    public int length()
+    {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        if ( index < 0 || index >= length ) {
+            throw new IndexOutOfBoundsException("Index "+index+" out of range 0-"+length);
+        }
+        return text[index];
+    }
+
+    @Override
+    public String text()
+    {
+        return new String( text , 0 , length );
+    }
+
+    @Override
+    public boolean eof()
+    {
+        return type == TokenType.EOF;
+    }
+
+    private void assertNumber() 
+    {
+        if ( type != TokenType.NUMBER ) {
+            throw new IllegalStateException("Current token is no number: "+this);
+        }
+    }
+
+    @Override
+    public boolean isIntegral()
+    {
+        assertNumber();
+        return number.isIntegral();
+    }
+
+    @Override
+    public boolean isLong()
+    {
+        assertNumber();
+        return number.isLong();
+    }
+
+    @Override
+    public long longValue()
+    {
+        assertNumber();
+        return number.longValue();
+    }
+
+    @Override
+    public double doubleValue()
+    {
+        assertNumber();
+        return number.doubleValue( text , length );
+    }
+
+    @Override
+    public void advance()
+    {
+        if ( type != TokenType.EOF ) {
+            parse();
+        }
+    }
+
+    @Override
+    public void setIgnoreWhitespace(boolean nowIgnoreWhitespace)
+    {
+        if ( nowIgnoreWhitespace != ignoreWhitespace ) 
+        {
+            this.ignoreWhitespace = nowIgnoreWhitespace;
+            scanner.setOffset( whitespaceStart );
+            parse();
+        }
+    }
+
+    @Override
+    public int readString(StringBuilder buffer, boolean supportsPlaceholders)
+    {
+        if ( type != TokenType.DOUBLE_QUOTE ) {
+            throw new MyParseException("Expected "+TokenType.DOUBLE_QUOTE+" but got "+this,start);
+        }
+        // scanner is positioned right after the opening double quote
+        while ( true ) 
+        {
+            if ( buffer != null ) {
+                scanner.readUntil( '"' , '\\' , buffer );
+            } else {
+                scanner.skipUntil( '"' , '\\' );
+            }
+            if ( scanner.eof() ) {
+                throw new MyParseException("Unterminated string literal",scanner.offset());
+            }
+            final int end = scanner.offset();
+            if ( scanner.next() == '"' ) {
+                parse();
+                return end;
+            }
+            if ( scanner.eof() ) {
+                throw new MyParseException("Unterminated string literal",scanner.offset());
+            }
+            final int offset = scanner.offset();
+            final char c = scanner.next();
+            EscapeSequences.appendEscape( c , buffer , supportsPlaceholders , offset );
+            if ( c == 'u' ) 
+            {
+                for ( int i = 0 ; i < 4 ; i++ ) {
+                    EscapeSequences.appendHexDigit( scanner.eof() ? -1 : scanner.peek() , buffer , scanner.offset() );
+                    scanner.next();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Token[ "+type+" = "+text()+" @ "+start+" ]";
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import de.codesourcery.jsonparser.Token.TokenType;
+import de.codesourcery.jsonparser.util.CharStream;
+import de.codesourcery.jsonparser.util.EscapeSequences;
+import de.codesourcery.jsonparser.util.MyParseException;
+import de.codesourcery.jsonparser.util.NumberAccumulator;
+
+/**
+ * Adapts an {@link ILexer} to the {@link ICursorLexer} interface.
+ *
+ * Numbers are combined from the lexer's MINUS, DIGITS and DOT tokens, exponents are not supported.
+ */
+public class CursorLexerAdapter implements ICursorLexer
+{
+    private final ILexer lexer;
+
+    private Token current;
+
+    // whether the current token is a NUMBER token combined from several tokens
+    private boolean combined;
+    private char[] numberChars;
+    private final NumberAccumulator number = new NumberAccumulator();
+
+    public CursorLexerAdapter(ILexer lexer)
+    {
+        this.lexer = lexer;
+        fetch();
+    }
+
+    private void fetch() 
+    {
+        combined = false;
+        current = lexer.peek();
+        if ( current.isNot( TokenType.MINUS ) && current.isNot( TokenType.DIGITS ) ) {
+            return;
+        }
+        final int offset = current.offset;
+        final StringBuilder buffer = new StringBuilder();
+        number.reset();
+        if ( current.is( TokenType.MINUS ) ) 
+        {
+            lexer.next();
+            buffer.append( '-' );
+            number.setNegative();
+        }
+        for ( char c : digits() ) 
+        {
+            buffer.append( c );
+            number.integerDigit( c );
+        }
+        if ( lexer.peek().is( TokenType.DOT ) ) 
+        {
+            lexer.next();
+            buffer.append( '.' );
+            for ( char c : digits() ) 
+            {
+                buffer.append( c );
+                number.fractionDigit( c );
+            }
+        }
+        current = new Token( TokenType.NUMBER , buffer.toString() , offset );
+        numberChars = current.value.toCharArray();
+        combined = true;
+    }
+
+    private char[] digits() 
+    {
+        final Token tok = lexer.expect( TokenType.DIGITS );
+        final char[] result = tok.value.toCharArray();
+        for ( int i = 0 ; i < result.length ; i++ ) 
+        {
+            if ( result[i] < '0' || result[i] > '9' ) {
+                throw new MyParseException("Expected digits but got "+tok,tok.offset+i);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public TokenType type()
+    {
+        return current.type;
+    }
+
+    @Override
+    public boolean is(TokenType t)
+    {
+        return current.type == t;
+    }
+
+    @Override
+    public int start()
+    {
+        return current.offset;
+    }
+
+    @Override
+    public int length()
+    {
+        return current.value.length();
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        return current.value.charAt( index );
+    }
+
+    @Override
+    public String text()
+    {
+        return current.value;
+    }
+
+    @Override
+    public boolean eof()
+    {
+        return current.is( TokenType.EOF );
+    }
+
+    private void assertNumber() 
+    {
+        if ( current.isNot( TokenType.NUMBER ) ) {
+            throw new IllegalStateException("Current token is no number: "+current);
+        }
+    }
+
+    @Override
+    public boolean isIntegral()
+    {
+        assertNumber();
+        return number.isIntegral();
+    }
+
+    @Override
+    public boolean isLong()
+    {
+        assertNumber();
+        return number.isLong();
+    }
+
+    @Override
+    public long longValue()
+    {
+        assertNumber();
+        return number.longValue();
+    }
+
+    @Override
+    public double doubleValue()
+    {
+        assertNumber();
+        return number.doubleValue( numberChars , numberChars.length );
+    }
+
+    @Override
+    public void advance()
+    {
+        if ( ! eof() ) 
+        {
+            if ( ! combined ) {
+                lexer.next();
+            }
+            fetch();
+        }
+    }
+
+    @Override
+    public void setIgnoreWhitespace(boolean yesNo)
+    {
+        lexer.setIgnoreWhitespace( yesNo );
+        fetch();
+    }
+
+    @Override
+    public int readString(StringBuilder buffer, boolean supportsPlaceholders)
+    {
+        lexer.expect( TokenType.DOUBLE_QUOTE );
+        if ( lexer.peek().isNot(TokenType.DOUBLE_QUOTE ) ) 
+        {
+            lexer.setIgnoreWhitespace( false );
+            try 
+            {
+                final CharStream stream = new CharStream(lexer);
+                while (  stream.hasNext() ) 
+                {
+                    if ( ! stream.escaped && stream.token.is(TokenType.BACKSLASH) ) {
+                        stream.next();
+                        stream.escaped = true;
+                        continue;
+                    }
+                    char c = stream.next();
+                    if ( stream.escaped ) 
+                    {
+                        stream.escaped = false;
+                        EscapeSequences.appendEscape( c , buffer , supportsPlaceholders , stream.offset()-1 );
+                        if ( c == 'u' ) 
+                        {
+                            for ( int i = 0 ; i < 4 ; i++ ) {
+                                EscapeSequences.appendHexDigit( stream.hasNext() ? stream.next() : -1 , buffer , stream.offset()-1 );
+                            }
+                        }
+                        continue;
+                    }
+                    if ( buffer != null ) {
+                        buffer.append( c );
+                    }
+                    stream.escaped = false;
+                }
+            } finally {
+                lexer.setIgnoreWhitespace( true );
+            }
+        }
+        final int end = lexer.expect( TokenType.DOUBLE_QUOTE ).offset;
+        fetch();
+        return end;
+    }
+
+    @Override
+    public String toString()
+    {
+        return current.toString();
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import de.codesourcery.jsonparser.Token.TokenType;
+
+/**
+ * Cursor-style lexer that exposes the current token through primitive accessors
+ * instead of {@link Token} objects.
+ *
+ * Walking the token stream using {@link #advance()} does not allocate, only {@link #text()} does.
+ */
+public interface ICursorLexer
+{
+    /**
+     * Returns the type of the current token.
+     */
+    public TokenType type();
+
+    public boolean is(TokenType t);
+
+    /**
+     * Returns the offset of the current token's first character.
+     */
+    public int start();
+
+    /**
+     * Returns the number of characters in the current token.
+     */
+    public int length();
+
+    /**
+     * Returns a character of the current token.
+     * 
+     * @param index index relative to the token start, <code>0...length()-1</code>
+     */
+    public char charAt(int index);
+
+    /**
+     * Returns the current token's characters as a new string.
+     */
+    public String text();
+
+    public boolean eof();
+
+    /**
+     * Returns whether the current {@link TokenType#NUMBER} token has neither fraction nor exponent.
+     */
+    public boolean isIntegral();
+
+    /**
+     * Returns whether the current {@link TokenType#NUMBER} token is integral and fits into a <code>long</code>.
+     */
+    public boolean isLong();
+
+    /**
+     * Returns the value of the current {@link TokenType#NUMBER} token.
+     * 
+     * @throws IllegalStateException if the number does not fit into a <code>long</code>
+     * @see #isLong()
+     */
+    public long longValue();
+
+    /**
+     * Returns the value of the current {@link TokenType#NUMBER} token as a <code>double</code>.
+     */
+    public double doubleValue();
+
+    /**
+     * Moves to the next token, staying on EOF once it has been reached.
+     */
+    public void advance();
+
+    public void setIgnoreWhitespace(boolean yesNo);
+
+    /**
+     * Reads a string literal, the current token must be its opening {@link TokenType#DOUBLE_QUOTE}.
+     *
+     * Escape sequences are validated and appended verbatim, except for <code>\$</code>
+     * which is only accepted when placeholders are supported and is appended as <code>$</code>.
+     * Afterwards the lexer is positioned on the token following the closing double quote.
+     *
+     * @param buffer buffer to append the literal's contents to, <code>null</code> to only validate the literal
+     * @param supportsPlaceholders whether <code>\$</code> is a valid escape sequence
+     * @return offset of the closing double quote
+     */
+    public int readString(StringBuilder buffer,boolean supportsPlaceholders);
+}
@@ -26,4 +26,36 @@ public interface IScanner
     public char next();
     
     public void setOffset(int offset);
+
+    /**
+     * Appends characters to a buffer until either one of the two delimiters
+     * or EOF is reached. The delimiter itself is not consumed.
+     */
+    public default void readUntil(char delimiter1,char delimiter2,StringBuilder buffer) 
+    {
+        while ( ! eof() ) 
+        {
+            final char c = peek();
+            if ( c == delimiter1 || c == delimiter2 ) {
+                return;
+            }
+            buffer.append( next() );
+        }
+    }
+
+    /**
+     * Skips characters until either one of the two delimiters
+     * or EOF is reached. The delimiter itself is not consumed.
+     */
+    public default void skipUntil(char delimiter1,char delimiter2) 
+    {
+        while ( ! eof() ) 
+        {
+            final char c = peek();
+            if ( c == delimiter1 || c == delimiter2 ) {
+                return;
+            }
+            next();
+        }
+    }
 }
@@ -0,0 +1,582 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import java.util.NoSuchElementException;
+
+import de.codesourcery.jsonparser.Token.TokenType;
+import de.codesourcery.jsonparser.util.MyParseException;
+import de.codesourcery.jsonparser.util.StringScanner;
+
+/**
+ * Pull-parser that returns the contents of a JSON document as a sequence of {@link Event}s.
+ *
+ * Nesting is tracked using an explicit state stack so arbitrarily large documents can be 
+ * processed without materializing them. Text of the current key, string or number is kept 
+ * in a reusable buffer that is only valid until the next call to {@link #next()}.
+ */
+public class JSONEventReader
+{
+    public static enum Event 
+    {
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        KEY,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        NULL,
+        PLACEHOLDER,
+        END_DOCUMENT
+    }
+
+    // parser states
+    private static final int ROOT = 0;
+    private static final int AFTER_ROOT = 1;
+    private static final int DONE = 2;
+    private static final int OBJECT_KEY_OR_END = 3;
+    private static final int OBJECT_KEY = 4;
+    private static final int OBJECT_VALUE = 5;
+    private static final int OBJECT_COMMA_OR_END = 6;
+    private static final int ARRAY_VALUE_OR_END = 7;
+    private static final int ARRAY_VALUE = 8;
+    private static final int ARRAY_COMMA_OR_END = 9;
+
+    public static final int DEFAULT_MAX_DEPTH = 1000;
+
+    private ICursorLexer lexer;
+
+    private boolean supportsPlaceholders = true;
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+
+    private static final int DEFAULT_STACK_SIZE = 16;
+
+    private int[] stack = new int[ DEFAULT_STACK_SIZE ];
+    // index of the top-most stack entry, stack[0] is the document itself
+    private int ptr;
+
+    private Event event;
+    private final StringBuilder buffer = new StringBuilder();
+    private boolean booleanValue;
+    private boolean numberIntegral;
+    private boolean numberIsLong;
+    private long longValue;
+    private double doubleValue;
+    private int textStart;
+    private int textEnd;
+
+    // input the lexer's offsets refer to, string values are decoded from it on demand
+    private CharSequence source;
+    private boolean textPending;
+
+    public JSONEventReader(String json) {
+        this( new StringScanner( json ) );
+    }
+
+    public JSONEventReader(IScanner scanner) {
+        this( new CursorLexer( scanner ) );
+    }
+
+    public JSONEventReader(ILexer lexer) {
+        this( new CursorLexerAdapter( lexer ) );
+    }
+
+    public JSONEventReader(ICursorLexer lexer) 
+    {
+        reset( lexer );
+    }
+
+    /**
+     * Resets this reader to read from another lexer, reusing its buffers.
+     */
+    public void reset(ICursorLexer lexer) 
+    {
+        this.lexer = lexer;
+        this.ptr = 0;
+        this.stack[0] = ROOT;
+        this.event = null;
+        this.source = null;
+    }
+
+    /**
+     * Sets the input the lexer's offsets refer to.
+     * 
+     * When set, string values are only validated while reading and their text is decoded from the source 
+     * when it is first requested, so values that are only accessed through {@link #getTextStart()} 
+     * and {@link #getTextEnd()} are never copied. The source is cleared by {@link #reset(ICursorLexer)}.
+     * 
+     * @param source source or <code>null</code> to always copy string values
+     */
+    public void setSource(CharSequence source) {
+        this.source = source;
+    }
+
+    /**
+     * Drops the reference to the current lexer, buffers are kept for reuse by {@link #reset(ICursorLexer)}
+     * unless they grew larger than {@link Parser#MAX_RETAINED_CAPACITY}.
+     */
+    void release() 
+    {
+        this.lexer = null;
+        this.source = null;
+        if ( stack.length > Parser.MAX_RETAINED_CAPACITY ) {
+            stack = new int[ DEFAULT_STACK_SIZE ];
+        }
+        if ( buffer.capacity() > Parser.MAX_RETAINED_CAPACITY ) 
+        {
+            buffer.setLength( 0 );
+            buffer.trimToSize();
+        }
+    }
+
+    private void push(int state) 
+    {
+        if ( ptr >= maxDepth ) {
+            throw new MyParseException("Maximum nesting depth of "+maxDepth+" exceeded",lexer.start());
+        }
+        if ( ++ptr == stack.length ) 
+        {
+            final int[] tmp = new int[ stack.length * 2 ];
+            System.arraycopy( stack , 0 , tmp , 0 , stack.length );
+            stack = tmp;
+        }
+        stack[ptr] = state;
+    }
+
+    private void consume(TokenType t) 
+    {
+        if ( ! lexer.is( t ) ) {
+            throw new MyParseException("Expected "+t+" but got "+lexer,lexer.start());
+        }
+        lexer.advance();
+    }
+
+    /**
+     * Returns whether there are more events, the last one is always {@link Event#END_DOCUMENT}.
+     */
+    public boolean hasNext() {
+        return stack[0] != DONE;
+    }
+
+    /**
+     * Advances to the next event.
+     *
+     * @throws MyParseException if the input is not valid JSON
+     * @throws NoSuchElementException if {@link Event#END_DOCUMENT} has already been returned
+     */
+    @SuppressWarnings("fallthrough")
+    public Event next() 
+    {
+        while ( true ) 
+        {
+            switch( stack[ptr] ) 
+            {
+                case ROOT:
+                    if ( lexer.eof() ) {
+                        throw new MyParseException("Premature end of input",lexer.start());
+                    }
+                    consume( TokenType.CURLY_BRACE_OPEN );
+                    stack[ptr] = AFTER_ROOT;
+                    push( OBJECT_KEY_OR_END );
+                    return event = Event.START_OBJECT;
+                case AFTER_ROOT:
+                    if ( ! lexer.eof() ) {
+                        throw new MyParseException("Garbage at end of input",lexer.start());
+                    }
+                    stack[ptr] = DONE;
+                    return event = Event.END_DOCUMENT;
+                case DONE:
+                    throw new NoSuchElementException("Already at end of document");
+                case OBJECT_KEY_OR_END:
+                    if ( lexer.is( TokenType.CURLY_BRACE_CLOSE ) ) 
+                    {
+                        lexer.advance();
+                        ptr--;
+                        return event = Event.END_OBJECT;
+                    }
+                    if ( ! lexer.is( TokenType.DOUBLE_QUOTE ) ) {
+                        throw new MyParseException("Expected "+TokenType.CURLY_BRACE_CLOSE+" but got "+lexer,lexer.start());
+                    }
+                    // fall through
+                case OBJECT_KEY:
+                    if ( ! lexer.is( TokenType.DOUBLE_QUOTE ) ) {
+                        throw new MyParseException("Expected another value",lexer.start());
+                    }
+                    readString( false );
+                    consume( TokenType.COLON );
+                    stack[ptr] = OBJECT_VALUE;
+                    return event = Event.KEY;
+                case OBJECT_VALUE:
+                    stack[ptr] = OBJECT_COMMA_OR_END;
+                    if ( ! parseValue() ) {
+                        throw new MyParseException("Found no valid value",lexer.start());
+                    }
+                    return event;
+                case OBJECT_COMMA_OR_END:
+                    if ( lexer.is( TokenType.COMMA ) ) 
+                    {
+                        lexer.advance();
+                        stack[ptr] = OBJECT_KEY;
+                        continue;
+                    }
+                    consume( TokenType.CURLY_BRACE_CLOSE );
+                    ptr--;
+                    return event = Event.END_OBJECT;
+                case ARRAY_VALUE_OR_END:
+                    if ( lexer.is( TokenType.ANGLE_BRACKETS_CLOSE ) ) 
+                    {
+                        lexer.advance();
+                        ptr--;
+                        return event = Event.END_ARRAY;
+                    }
+                    // fall through
+                case ARRAY_VALUE:
+                    stack[ptr] = ARRAY_COMMA_OR_END;
+                    if ( ! parseValue() ) 
+                    {
+                        if ( lexer.is( TokenType.ANGLE_BRACKETS_CLOSE ) ) {
+                            throw new MyParseException("JSON array requires an additional value" , lexer.start() );
+                        }
+                        throw new MyParseException("Expected a value",lexer.start());
+                    }
+                    return event;
+                case ARRAY_COMMA_OR_END:
+                    if ( lexer.is( TokenType.COMMA ) ) 
+                    {
+                        lexer.advance();
+                        stack[ptr] = ARRAY_VALUE;
+                        continue;
+                    }
+                    consume( TokenType.ANGLE_BRACKETS_CLOSE );
+                    ptr--;
+                    return event = Event.END_ARRAY;
+                default:
+                    throw new RuntimeException("Internal error, unhandled state "+stack[ptr]);
+            }
+        }
+    }
+
+    private boolean parseValue() 
+    {
+        switch( lexer.type() ) 
+        {
+            case DOUBLE_QUOTE:
+                readString( source != null );
+                event = Event.STRING;
+                return true;
+            case TRUE:
+            case FALSE:
+                booleanValue = lexer.is( TokenType.TRUE );
+                lexer.advance();
+                event = Event.BOOLEAN;
+                return true;
+            case NULL:
+                lexer.advance();
+                event = Event.NULL;
+                return true;
+            case NUMBER:
+                buffer.setLength( 0 );
+                for ( int i = 0 , len = lexer.length() ; i < len ; i++ ) {
+                    buffer.append( lexer.charAt( i ) );
+                }
+                numberIntegral = lexer.isIntegral();
+                numberIsLong = lexer.isLong();
+                if ( numberIsLong ) {
+                    longValue = lexer.longValue();
+                    doubleValue = longValue;
+                } else {
+                    doubleValue = lexer.doubleValue();
+                }
+                lexer.advance();
+                event = Event.NUMBER;
+                return true;
+            case DOLLAR:
+                if ( ! supportsPlaceholders ) {
+                    return false;
+                }
+                parsePlaceholderExpression();
+                event = Event.PLACEHOLDER;
+                return true;
+            case CURLY_BRACE_OPEN:
+                lexer.advance();
+                push( OBJECT_KEY_OR_END );
+                event = Event.START_OBJECT;
+                return true;
+            case ANGLE_BRACKETS_OPEN:
+                lexer.advance();
+                push( ARRAY_VALUE_OR_END );
+                event = Event.START_ARRAY;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void readString(boolean deferText) 
+    {
+        textStart = lexer.start() + 1;
+        textPending = deferText;
+        if ( deferText ) {
+            textEnd = lexer.readString( null , supportsPlaceholders );
+        } else {
+            buffer.setLength( 0 );
+            textEnd = lexer.readString( buffer , supportsPlaceholders );
+        }
+    }
+
+    private CharSequence text() 
+    {
+        assertHasText();
+        if ( textPending && event == Event.STRING ) 
+        {
+            // same representation as the lexer produces, the literal has already been validated
+            buffer.setLength( 0 );
+            for ( int i = textStart ; i < textEnd ; i++ ) 
+            {
+                final char c = source.charAt( i );
+                if ( c == '\\' ) 
+                {
+                    final char next = source.charAt( ++i );
+                    if ( next != '$' ) {
+                        buffer.append( c );
+                    }
+                    buffer.append( next );
+                } else {
+                    buffer.append( c );
+                }
+            }
+            textPending = false;
+        }
+        return buffer;
+    }
+
+    private void parsePlaceholderExpression() 
+    {
+        consume(TokenType.DOLLAR);
+        consume(TokenType.CURLY_BRACE_OPEN);
+        buffer.setLength( 0 );
+        while ( ! lexer.eof() && ! lexer.is(TokenType.CURLY_BRACE_CLOSE)) 
+        {
+            for ( int i = 0 , len = lexer.length() ; i < len ; i++ ) 
+            {
+                final char c = lexer.charAt( i );
+                if ( ! Identifier.isValidIdentifierChar( Character.toLowerCase( c ) ) ) {
+                    throw new MyParseException("Invalid characters in identifier name",lexer.start() + i );
+                }
+                buffer.append( c );
+            }
+            lexer.advance();
+        }
+        if ( buffer.length() == 0 ) {
+            throw new MyParseException("Missing identifier name",lexer.start());
+        }
+        consume(TokenType.CURLY_BRACE_CLOSE);
+    }
+
+    /**
+     * Skips all events up to and including the end of the object or array that has just been started.
+     *
+     * Does nothing unless the current event is {@link Event#START_OBJECT} or {@link Event#START_ARRAY}.
+     * Afterwards the current event is the matching {@link Event#END_OBJECT} or {@link Event#END_ARRAY}.
+     */
+    public void skipChildren() 
+    {
+        if ( event != Event.START_OBJECT && event != Event.START_ARRAY ) {
+            return;
+        }
+        final int depth = ptr;
+        while ( ptr >= depth ) {
+            next();
+        }
+    }
+
+    /**
+     * Returns the current event or <code>null</code> if {@link #next()} has not been called yet.
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Returns the number of currently open objects and arrays.
+     */
+    public int depth() {
+        return ptr;
+    }
+
+    /**
+     * Returns the offset of the token following the current event.
+     */
+    public int offset() {
+        return lexer.start();
+    }
+
+    /**
+     * Returns the text of the current {@link Event#KEY}, {@link Event#STRING}, {@link Event#NUMBER}
+     * or {@link Event#PLACEHOLDER} event.
+     *
+     * String contents use the same representation as {@link de.codesourcery.jsonparser.ast.StringLiteral#getValue()}.
+     */
+    public String getText() 
+    {
+        return text().toString();
+    }
+
+    /**
+     * Returns the text of the current event without copying it.
+     * 
+     * The returned buffer is reused and only valid until the next call to {@link #next()}.
+     * @see #getText()
+     */
+    public CharSequence getTextBuffer() 
+    {
+        return text();
+    }
+
+    /**
+     * Returns whether the text of the current event equals a given string, without copying it.
+     */
+    public boolean textEquals(CharSequence s) 
+    {
+        final CharSequence buffer = text();
+        final int len = buffer.length();
+        if ( len != s.length() ) {
+            return false;
+        }
+        for ( int i = 0 ; i < len ; i++ ) 
+        {
+            if ( buffer.charAt( i ) != s.charAt( i ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the input offset of the first character after the opening double quote
+     * of the current {@link Event#KEY} or {@link Event#STRING}.
+     */
+    public int getTextStart() 
+    {
+        assertHasSourceText();
+        return textStart;
+    }
+
+    /**
+     * Returns the input offset of the closing double quote of the current {@link Event#KEY} or {@link Event#STRING}.
+     */
+    public int getTextEnd() 
+    {
+        assertHasSourceText();
+        return textEnd;
+    }
+
+    private void assertHasSourceText() 
+    {
+        if ( event != Event.KEY && event != Event.STRING ) {
+            throw new IllegalStateException("Current event is no string: "+event);
+        }
+    }
+
+    private void assertHasText() 
+    {
+        if ( event != Event.KEY && event != Event.STRING && event != Event.NUMBER && event != Event.PLACEHOLDER ) {
+            throw new IllegalStateException("Current event has no text: "+event);
+        }
+    }
+
+    private void assertEvent(Event expected) 
+    {
+        if ( event != expected ) {
+            throw new IllegalStateException("Expected current event to be "+expected+" but was "+event);
+        }
+    }
+
+    public boolean getBoolean() 
+    {
+        assertEvent( Event.BOOLEAN );
+        return booleanValue;
+    }
+
+    public Identifier getPlaceholder() 
+    {
+        assertEvent( Event.PLACEHOLDER );
+        return new Identifier( buffer.toString() );
+    }
+
+    /**
+     * Returns whether the current number has neither fraction nor exponent.
+     */
+    public boolean isIntegral() 
+    {
+        assertEvent( Event.NUMBER );
+        return numberIntegral;
+    }
+
+    /**
+     * Returns whether the current number is integral and fits into a <code>long</code>.
+     */
+    public boolean isLong() 
+    {
+        assertEvent( Event.NUMBER );
+        return numberIsLong;
+    }
+
+    /**
+     * @throws IllegalStateException if the current number does not fit into a <code>long</code>
+     */
+    public long getLong() 
+    {
+        if ( ! isLong() ) {
+            throw new IllegalStateException("Not a long value: "+buffer);
+        }
+        return longValue;
+    }
+
+    public double getDouble() 
+    {
+        assertEvent( Event.NUMBER );
+        return doubleValue;
+    }
+
+    /**
+     * Sets the maximum number of nested objects and arrays, deeper nesting fails with a {@link MyParseException}.
+     */
+    public void setMaxDepth(int maxDepth)
+    {
+        if ( maxDepth < 1 ) {
+            throw new IllegalArgumentException("Max. depth must be >= 1");
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxDepth()
+    {
+        return maxDepth;
+    }
+
+    public void setSupportsPlaceholders(boolean supportsPlaceholders)
+    {
+        this.supportsPlaceholders = supportsPlaceholders;
+    }
+
+    public boolean isSupportsPlaceholders()
+    {
+        return supportsPlaceholders;
+    }
+}
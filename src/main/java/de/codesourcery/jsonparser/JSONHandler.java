@@ -0,0 +1,63 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+/**
+ * Callbacks invoked by {@link PushParser} while a JSON document is being parsed.
+ *
+ * There is one callback for each of the {@link de.codesourcery.jsonparser.util.ASTVisitor}'s
+ * <code>visit()</code> methods, objects and arrays are reported by a start and an end callback with their 
+ * contents in between. Values are passed without creating AST nodes, character sequences 
+ * passed to a callback are only valid until it returns.
+ */
+public class JSONHandler
+{
+    // JSONObject
+    protected void startObject() { }
+
+    protected void endObject() { }
+
+    // JSONArray
+    protected void startArray() { }
+
+    protected void endArray() { }
+
+    /**
+     * Invoked for each object member (KeyValue), before the callbacks for its value.
+     */
+    protected void keyValue(CharSequence key) { }
+
+    protected void stringLiteral(CharSequence value) { }
+
+    /**
+     * Invoked for integral numbers that fit into a <code>long</code>.
+     */
+    protected void numberLiteral(long value) { }
+
+    /**
+     * Invoked for all other numbers.
+     * 
+     * @param value the number converted to a double
+     * @param text the number's text
+     */
+    protected void numberLiteral(double value,CharSequence text) { }
+
+    protected void booleanLiteral(boolean value) { }
+
+    protected void nullLiteral() { }
+
+    protected void placeholderExpression(CharSequence name) { }
+}
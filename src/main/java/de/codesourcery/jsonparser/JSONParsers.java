@@ -0,0 +1,110 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import java.io.Reader;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.util.StringPool;
+
+/**
+ * Thread-safe entry point for parsing JSON with a shared configuration.
+ *
+ * Each thread gets its own {@link Parser} whose scanner, lexer, state stack and buffers
+ * are recycled across invocations instead of being allocated anew for every document.
+ * Buffers that grew while parsing a very large document are not kept.
+ */
+public final class JSONParsers
+{
+    private final boolean supportsPlaceholders;
+    private final int maxDepth;
+    private final StringPool stringPool;
+    private final boolean poolStringValues;
+
+    private final ThreadLocal<Parser> parsers = ThreadLocal.withInitial( this::createParser );
+
+    public JSONParsers() {
+        this( true , JSONEventReader.DEFAULT_MAX_DEPTH );
+    }
+
+    public JSONParsers(boolean supportsPlaceholders,int maxDepth)
+    {
+        this( supportsPlaceholders , maxDepth , null , false );
+    }
+
+    /**
+     * @param stringPool pool shared by all threads' parsers, <code>null</code> disables pooling
+     * @param poolStringValues whether to pool short string values in addition to object keys
+     * @see Parser#setStringPool(StringPool)
+     */
+    public JSONParsers(boolean supportsPlaceholders,int maxDepth,StringPool stringPool,boolean poolStringValues)
+    {
+        if ( maxDepth < 1 ) {
+            throw new IllegalArgumentException("Max. depth must be >= 1");
+        }
+        this.supportsPlaceholders = supportsPlaceholders;
+        this.maxDepth = maxDepth;
+        this.stringPool = stringPool;
+        this.poolStringValues = poolStringValues;
+    }
+
+    private Parser createParser() 
+    {
+        final Parser parser = new Parser();
+        parser.setSupportsPlaceholders( supportsPlaceholders );
+        parser.setMaxDepth( maxDepth );
+        parser.setStringPool( stringPool );
+        parser.setPoolStringValues( poolStringValues );
+        return parser;
+    }
+
+    /**
+     * Returns the calling thread's parser.
+     * 
+     * The parser must not be handed to other threads.
+     */
+    public Parser get() {
+        return parsers.get();
+    }
+
+    public ASTNode parse(CharSequence s) {
+        return get().parse( s , 0 , s.length() );
+    }
+
+    public ASTNode parse(CharSequence s,int offset,int length) {
+        return get().parse( s , offset , length );
+    }
+
+    public ASTNode parse(Reader reader) {
+        return get().parse( reader );
+    }
+
+    public boolean isSupportsPlaceholders() {
+        return supportsPlaceholders;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public StringPool getStringPool() {
+        return stringPool;
+    }
+
+    public boolean isPoolStringValues() {
+        return poolStringValues;
+    }
+}
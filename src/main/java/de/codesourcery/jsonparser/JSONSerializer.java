@@ -0,0 +1,292 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes graphs of plain Java objects as JSON, the inverse of {@link de.codesourcery.jsonparser.ast.ASTNode#toJavaObject()}.
+ * 
+ * Supported are {@link Map}s (keys are converted using {@link String#valueOf(Object)}), {@link Collection}s, 
+ * arrays, {@link CharSequence}s, {@link Character}s, {@link Number}s, {@link Boolean}s and {@link Identifier}s, the latter 
+ * are written as placeholders. The writer strategy for each class is looked up once and cached.
+ * 
+ * Strings and map keys are plain text and get escaped. The <code>raw</code> variants instead treat them like the values of 
+ * parsed string literals, escape sequences contained in them are written as-is (see {@link JSONWriter#rawValue(CharSequence)}) 
+ * so the output of <code>toJavaObject()</code> is written back unchanged.
+ * 
+ * This class is thread-safe.
+ */
+public final class JSONSerializer
+{
+    /**
+     * Maximum nesting depth, guards against cyclic object graphs.
+     */
+    public static final int MAX_DEPTH = 1000;
+
+    private interface Strategy 
+    {
+        public void write(Object value,JSONWriter writer,int depth,boolean raw) throws IOException;
+    }
+
+    private static final Strategy CHARACTER = (value,writer,depth,raw) -> writer.value( value.toString() );
+    private static final Strategy NUMBER = (value,writer,depth,raw) -> writer.value( (Number) value );
+    private static final Strategy BOOLEAN = (value,writer,depth,raw) -> writer.value( ((Boolean) value).booleanValue() );
+    private static final Strategy PLACEHOLDER = (value,writer,depth,raw) -> writer.placeholder( (Identifier) value );
+
+    private static final Strategy STRING = (value,writer,depth,raw) -> 
+    {
+        if ( raw ) {
+            writer.rawValue( (CharSequence) value );
+        } else {
+            writer.value( (CharSequence) value );
+        }
+    };
+
+    private static final Strategy MAP = (value,writer,depth,raw) -> 
+    {
+        writer.beginObject();
+        for ( Map.Entry<?,?> entry : ((Map<?,?>) value).entrySet() ) 
+        {
+            final Object key = entry.getKey();
+            final CharSequence name = key instanceof CharSequence ? (CharSequence) key : String.valueOf( key );
+            if ( raw ) {
+                writer.rawName( name );
+            } else {
+                writer.name( name );
+            }
+            write( entry.getValue() , writer , depth + 1 , raw );
+        }
+        writer.endObject();
+    };
+
+    private static final Strategy COLLECTION = (value,writer,depth,raw) -> 
+    {
+        writer.beginArray();
+        for ( Object element : (Collection<?>) value ) {
+            write( element , writer , depth + 1 , raw );
+        }
+        writer.endArray();
+    };
+
+    private static final Strategy OBJECT_ARRAY = (value,writer,depth,raw) -> 
+    {
+        writer.beginArray();
+        for ( Object element : (Object[]) value ) {
+            write( element , writer , depth + 1 , raw );
+        }
+        writer.endArray();
+    };
+
+    private static final Strategy INT_ARRAY = (value,writer,depth,raw) -> 
+    {
+        writer.beginArray();
+        for ( int element : (int[]) value ) {
+            writer.value( element );
+        }
+        writer.endArray();
+    };
+
+    private static final Strategy LONG_ARRAY = (value,writer,depth,raw) -> 
+    {
+        writer.beginArray();
+        for ( long element : (long[]) value ) {
+            writer.value( element );
+        }
+        writer.endArray();
+    };
+
+    private static final Strategy DOUBLE_ARRAY = (value,writer,depth,raw) -> 
+    {
+        writer.beginArray();
+        for ( double element : (double[]) value ) {
+            writer.value( element );
+        }
+        writer.endArray();
+    };
+
+    private static final Strategy BOOLEAN_ARRAY = (value,writer,depth,raw) -> 
+    {
+        writer.beginArray();
+        for ( boolean element : (boolean[]) value ) {
+            writer.value( element );
+        }
+        writer.endArray();
+    };
+
+    // remaining primitive arrays (byte, short, char, float), these are rare enough to go through reflection
+    private static final Strategy PRIMITIVE_ARRAY = (value,writer,depth,raw) -> 
+    {
+        writer.beginArray();
+        for ( int i = 0 , len = Array.getLength( value ) ; i < len ; i++ ) 
+        {
+            final Object element = Array.get( value , i );
+            if ( element instanceof Character ) {
+                writer.value( element.toString() );
+            } else {
+                writer.value( (Number) element );
+            }
+        }
+        writer.endArray();
+    };
+
+    private static final ClassValue<Strategy> STRATEGIES = new ClassValue<Strategy>() 
+    {
+        @Override
+        protected Strategy computeValue(Class<?> type) 
+        {
+            if ( CharSequence.class.isAssignableFrom( type ) ) {
+                return STRING;
+            }
+            if ( Number.class.isAssignableFrom( type ) ) {
+                return NUMBER;
+            }
+            if ( type == Boolean.class ) {
+                return BOOLEAN;
+            }
+            if ( type == Character.class ) {
+                return CHARACTER;
+            }
+            if ( type == Identifier.class ) {
+                return PLACEHOLDER;
+            }
+            if ( Map.class.isAssignableFrom( type ) ) {
+                return MAP;
+            }
+            if ( Collection.class.isAssignableFrom( type ) ) {
+                return COLLECTION;
+            }
+            if ( type.isArray() ) 
+            {
+                final Class<?> component = type.getComponentType();
+                if ( ! component.isPrimitive() ) {
+                    return OBJECT_ARRAY;
+                }
+                if ( component == int.class ) {
+                    return INT_ARRAY;
+                }
+                if ( component == long.class ) {
+                    return LONG_ARRAY;
+                }
+                if ( component == double.class ) {
+                    return DOUBLE_ARRAY;
+                }
+                if ( component == boolean.class ) {
+                    return BOOLEAN_ARRAY;
+                }
+                return PRIMITIVE_ARRAY;
+            }
+            return null;
+        }
+    };
+
+    private JSONSerializer() {
+    }
+
+    /**
+     * Returns the JSON text for an object graph.
+     * 
+     * @throws IllegalArgumentException if the graph contains an unsupported type or is nested deeper than {@link #MAX_DEPTH}
+     */
+    public static String toJSON(Object value) {
+        return toJSON( value , false );
+    }
+
+    /**
+     * Returns the JSON text for an object graph whose strings already contain escape sequences, 
+     * like the result of {@link de.codesourcery.jsonparser.ast.ASTNode#toJavaObject()}.
+     * 
+     * @see #toJSON(Object)
+     */
+    public static String toRawJSON(Object value) {
+        return toJSON( value , true );
+    }
+
+    private static String toJSON(Object value,boolean raw) 
+    {
+        final StringBuilder buffer = new StringBuilder();
+        try {
+            write( value , buffer , raw );
+        } 
+        catch (IOException e) {
+            throw new RuntimeException("Internal error, StringBuilder threw IOException",e);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Writes an object graph as JSON.
+     * 
+     * @see #toJSON(Object)
+     */
+    public static void write(Object value,Appendable out) throws IOException {
+        write( value , out , false );
+    }
+
+    /**
+     * Writes an object graph whose strings already contain escape sequences as JSON.
+     * 
+     * @see #toRawJSON(Object)
+     */
+    public static void writeRaw(Object value,Appendable out) throws IOException {
+        write( value , out , true );
+    }
+
+    private static void write(Object value,Appendable out,boolean raw) throws IOException 
+    {
+        final JSONWriter writer = new JSONWriter( out );
+        write( value , writer , 0 , raw );
+        writer.flush();
+    }
+
+    /**
+     * Writes an object graph as the next value of a {@link JSONWriter}.
+     * 
+     * @see #toJSON(Object)
+     */
+    public static void write(Object value,JSONWriter writer) throws IOException {
+        write( value , writer , 0 , false );
+    }
+
+    /**
+     * Writes an object graph whose strings already contain escape sequences as the next value of a {@link JSONWriter}.
+     * 
+     * @see #toRawJSON(Object)
+     */
+    public static void writeRaw(Object value,JSONWriter writer) throws IOException {
+        write( value , writer , 0 , true );
+    }
+
+    private static void write(Object value,JSONWriter writer,int depth,boolean raw) throws IOException 
+    {
+        if ( value == null ) 
+        {
+            writer.nullValue();
+            return;
+        }
+        if ( depth > MAX_DEPTH ) {
+            throw new IllegalArgumentException("Object graph is nested more than "+MAX_DEPTH+" levels deep, is it cyclic?");
+        }
+        final Strategy strategy = STRATEGIES.get( value.getClass() );
+        if ( strategy == null ) {
+            throw new IllegalArgumentException("Don't know how to serialize "+value.getClass().getName());
+        }
+        strategy.write( value , writer , depth , raw );
+    }
+}
@@ -0,0 +1,420 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.codesourcery.jsonparser.util.EscapeSequences;
+
+/**
+ * Streaming generator for compact JSON text, the counterpart of {@link JSONEventReader}.
+ * 
+ * Output is collected in a fixed-size buffer that gets passed to the underlying {@link Appendable} 
+ * whenever it is full, writing values does not allocate any objects. The structure of
+ * the output is validated as it is written, calls that would produce invalid JSON fail
+ * with an {@link IllegalStateException}.
+ * 
+ * Strings passed to {@link #name(CharSequence)} and {@link #value(CharSequence)} are plain text, double quotes,
+ * backslashes and control characters are escaped. {@link #rawName(CharSequence)} and {@link #rawValue(CharSequence)}
+ * expect strings that already contain escape sequences, like the values of parsed string literals. Character sequences that look like placeholders 
+ * are not escaped, use {@link #placeholder(Identifier)} to write a placeholder value.
+ * 
+ * Instances are not thread-safe.
+ */
+public class JSONWriter implements Closeable, Flushable
+{
+    private static final int BUFFER_SIZE = 8192;
+
+    // states kept on the stack
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    // object member name has been written, value is missing
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    // character written after a backslash, 0 if the character needs no escaping
+    private static final char[] ESCAPES = new char[128];
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    static 
+    {
+        for ( int c = 0 ; c < 0x20 ; c++ ) {
+            ESCAPES[c] = 'u';
+        }
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+    }
+
+    private final Appendable out;
+
+    private final char[] buffer = new char[ BUFFER_SIZE ];
+    private int size;
+
+    private int[] stack = new int[32];
+    private int depth = 1;
+
+    private final StringBuilder numberBuffer = new StringBuilder();
+
+    public JSONWriter(Appendable out) 
+    {
+        if ( out == null ) {
+            throw new IllegalArgumentException("Appendable must not be NULL");
+        }
+        this.out = out;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    public JSONWriter beginObject() throws IOException 
+    {
+        beforeValue();
+        push( EMPTY_OBJECT );
+        write( '{' );
+        return this;
+    }
+
+    public JSONWriter endObject() throws IOException 
+    {
+        final int state = stack[ depth - 1 ];
+        if ( state == DANGLING_NAME ) {
+            throw new IllegalStateException("Object member has no value");
+        }
+        if ( state != EMPTY_OBJECT && state != NONEMPTY_OBJECT ) {
+            throw new IllegalStateException("Not inside an object");
+        }
+        depth--;
+        write( '}' );
+        return this;
+    }
+
+    public JSONWriter beginArray() throws IOException 
+    {
+        beforeValue();
+        push( EMPTY_ARRAY );
+        write( '[' );
+        return this;
+    }
+
+    public JSONWriter endArray() throws IOException 
+    {
+        final int state = stack[ depth - 1 ];
+        if ( state != EMPTY_ARRAY && state != NONEMPTY_ARRAY ) {
+            throw new IllegalStateException("Not inside an array");
+        }
+        depth--;
+        write( ']' );
+        return this;
+    }
+
+    /**
+     * Writes the name of the next object member.
+     */
+    public JSONWriter name(CharSequence name) throws IOException {
+        return name( name , false );
+    }
+
+    /**
+     * Writes the name of the next object member, escape sequences contained in the name are kept.
+     * 
+     * @see #rawValue(CharSequence)
+     */
+    public JSONWriter rawName(CharSequence name) throws IOException {
+        return name( name , true );
+    }
+
+    private JSONWriter name(CharSequence name,boolean raw) throws IOException 
+    {
+        if ( name == null ) {
+            throw new IllegalArgumentException("Name must not be NULL");
+        }
+        final int state = stack[ depth - 1 ];
+        if ( state == NONEMPTY_OBJECT ) {
+            write( ',' );
+        } else if ( state != EMPTY_OBJECT ) {
+            throw new IllegalStateException( state == DANGLING_NAME ? "Object member has no value" : "Not inside an object" );
+        }
+        stack[ depth - 1 ] = DANGLING_NAME;
+        string( name , raw );
+        write( ':' );
+        return this;
+    }
+
+    public JSONWriter value(long value) throws IOException 
+    {
+        beforeValue();
+        numberBuffer.setLength( 0 );
+        numberBuffer.append( value );
+        write( numberBuffer );
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is NaN or infinite
+     */
+    public JSONWriter value(double value) throws IOException 
+    {
+        if ( Double.isNaN( value ) || Double.isInfinite( value ) ) {
+            throw new IllegalArgumentException("Not a valid JSON number: "+value);
+        }
+        beforeValue();
+        numberBuffer.setLength( 0 );
+        numberBuffer.append( value );
+        write( numberBuffer );
+        return this;
+    }
+
+    /**
+     * Writes a number, <code>null</code> writes a JSON <code>null</code>.
+     * 
+     * {@link BigInteger} and {@link BigDecimal} values are written exactly, 
+     * other types are written as <code>long</code> or <code>double</code>.
+     * 
+     * @throws IllegalArgumentException if the value is NaN or infinite
+     */
+    public JSONWriter value(Number value) throws IOException 
+    {
+        if ( value == null ) {
+            return nullValue();
+        }
+        if ( value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte ||
+             value instanceof AtomicInteger || value instanceof AtomicLong ) 
+        {
+            return value( value.longValue() );
+        }
+        if ( value instanceof BigInteger || value instanceof BigDecimal ) 
+        {
+            beforeValue();
+            write( value.toString() );
+            return this;
+        }
+        return value( value.doubleValue() );
+    }
+
+    public JSONWriter value(boolean value) throws IOException 
+    {
+        beforeValue();
+        write( value ? "true" : "false" );
+        return this;
+    }
+
+    /**
+     * Writes a string value, <code>null</code> writes a JSON <code>null</code>.
+     */
+    public JSONWriter value(CharSequence value) throws IOException 
+    {
+        if ( value == null ) {
+            return nullValue();
+        }
+        beforeValue();
+        string( value , false );
+        return this;
+    }
+
+    /**
+     * Writes a string value whose escape sequences are already in place, 
+     * like the values returned by {@link de.codesourcery.jsonparser.ast.StringLiteral#getValue()}.
+     * 
+     * Valid escape sequences are copied as-is, other characters (including backslashes that do not 
+     * start an escape sequence) are escaped where necessary. <code>null</code> writes a JSON <code>null</code>.
+     */
+    public JSONWriter rawValue(CharSequence value) throws IOException 
+    {
+        if ( value == null ) {
+            return nullValue();
+        }
+        beforeValue();
+        string( value , true );
+        return this;
+    }
+
+    public JSONWriter nullValue() throws IOException 
+    {
+        beforeValue();
+        write( "null" );
+        return this;
+    }
+
+    /**
+     * Writes a placeholder expression as a value.
+     */
+    public JSONWriter placeholder(Identifier name) throws IOException 
+    {
+        beforeValue();
+        write( '$' );
+        write( '{' );
+        write( name.name );
+        write( '}' );
+        return this;
+    }
+
+    /**
+     * Returns whether a complete top-level value has been written.
+     */
+    public boolean isComplete() {
+        return depth == 1 && stack[0] == NONEMPTY_DOCUMENT;
+    }
+
+    /**
+     * Passes buffered output to the underlying {@link Appendable} and flushes it if it is {@link Flushable}.
+     */
+    @Override
+    public void flush() throws IOException 
+    {
+        flushBuffer();
+        if ( out instanceof Flushable ) {
+            ((Flushable) out).flush();
+        }
+    }
+
+    /**
+     * Flushes output and closes the underlying {@link Appendable} if it is {@link Closeable}.
+     * 
+     * @throws IllegalStateException if the document is incomplete
+     */
+    @Override
+    public void close() throws IOException 
+    {
+        flush();
+        if ( out instanceof Closeable ) {
+            ((Closeable) out).close();
+        }
+        if ( ! isComplete() ) {
+            throw new IllegalStateException("Incomplete document");
+        }
+    }
+
+    private void push(int state) 
+    {
+        if ( depth == stack.length ) {
+            stack = Arrays.copyOf( stack , depth * 2 );
+        }
+        stack[ depth++ ] = state;
+    }
+
+    /**
+     * Updates the current state before a value is written, inserting a separator if necessary.
+     */
+    private void beforeValue() throws IOException 
+    {
+        switch( stack[ depth - 1 ] ) 
+        {
+            case EMPTY_DOCUMENT:
+                stack[ depth - 1 ] = NONEMPTY_DOCUMENT;
+                break;
+            case NONEMPTY_DOCUMENT:
+                throw new IllegalStateException("Document has more than one top-level value");
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                throw new IllegalStateException("Object member has no name");
+            case DANGLING_NAME:
+                stack[ depth - 1 ] = NONEMPTY_OBJECT;
+                break;
+            case EMPTY_ARRAY:
+                stack[ depth - 1 ] = NONEMPTY_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                write( ',' );
+                break;
+            default:
+                throw new RuntimeException("Internal error, unhandled state "+stack[ depth - 1 ]);
+        }
+    }
+
+    private void string(CharSequence s,boolean raw) throws IOException 
+    {
+        write( '"' );
+        for ( int i = 0 , len = s.length() ; i < len ; i++ ) 
+        {
+            final char c = s.charAt( i );
+            final char escape = c < 128 ? ESCAPES[c] : 0;
+            if ( raw && c == '\\' && i + 1 < len && EscapeSequences.isEscapeCharacter( s.charAt( i + 1 ) ) ) 
+            {
+                write( c );
+                write( s.charAt( ++i ) );
+            }
+            else if ( escape == 0 ) 
+            {
+                if ( size == buffer.length ) {
+                    flushBuffer();
+                }
+                buffer[ size++ ] = c;
+            } 
+            else 
+            {
+                if ( size + 6 > buffer.length ) {
+                    flushBuffer();
+                }
+                buffer[ size++ ] = '\\';
+                buffer[ size++ ] = escape;
+                if ( escape == 'u' ) 
+                {
+                    buffer[ size++ ] = '0';
+                    buffer[ size++ ] = '0';
+                    buffer[ size++ ] = HEX[ c >> 4 ];
+                    buffer[ size++ ] = HEX[ c & 0x0f ];
+                }
+            }
+        }
+        write( '"' );
+    }
+
+    private void write(char c) throws IOException 
+    {
+        if ( size == buffer.length ) {
+            flushBuffer();
+        }
+        buffer[ size++ ] = c;
+    }
+
+    private void write(CharSequence s) throws IOException 
+    {
+        for ( int i = 0 , len = s.length() ; i < len ; i++ ) {
+            write( s.charAt( i ) );
+        }
+    }
+
+    private void flushBuffer() throws IOException 
+    {
+        if ( size == 0 ) {
+            return;
+        }
+        if ( out instanceof Writer ) {
+            ((Writer) out).write( buffer , 0 , size );
+        } else if ( out instanceof StringBuilder ) {
+            ((StringBuilder) out).append( buffer , 0 , size );
+        } else {
+            out.append( CharBuffer.wrap( buffer , 0 , size ) );
+        }
+        size = 0;
+    }
+}
@@ -15,8 +15,7 @@
  */
 package de.codesourcery.jsonparser;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
 
 import de.codesourcery.jsonparser.Token.TokenType;
 import de.codesourcery.jsonparser.util.MyParseException;
@@ -25,7 +24,7 @@ public class Lexer implements ILexer
 {
     private final IScanner scanner;
     
-    private final List<Token> tokens = new ArrayList<>();
+    private final ArrayDeque<Token> tokens = new ArrayDeque<>();
     private final StringBuilder buffer = new StringBuilder();
 
     private boolean ignoreWhitespace = true;
@@ -67,25 +66,26 @@ public class Lexer implements ILexer
                 break;
             }
             TokenType type = null;
+            String value = null;
             switch( c ) 
             {
-                case '.': type = TokenType.DOT; break;
-                case '-': type = TokenType.MINUS; break;
-                case ',': type = TokenType.COMMA; break;
-                case ':': type = TokenType.COLON; break;
-                case '\\': type = TokenType.BACKSLASH; break;
-                case '{': type = TokenType.CURLY_BRACE_OPEN; break;
-                case '[': type = TokenType.ANGLE_BRACKETS_OPEN; break;
-                case ']': type = TokenType.ANGLE_BRACKETS_CLOSE; break;
-                case '}': type = TokenType.CURLY_BRACE_CLOSE; break;
-                case '$': type = TokenType.DOLLAR; break;
-                case '"': type = TokenType.DOUBLE_QUOTE; break;
+                case '.': type = TokenType.DOT; value = "."; break;
+                case '-': type = TokenType.MINUS; value = "-"; break;
+                case ',': type = TokenType.COMMA; value = ","; break;
+                case ':': type = TokenType.COLON; value = ":"; break;
+                case '\\': type = TokenType.BACKSLASH; value = "\\"; break;
+                case '{': type = TokenType.CURLY_BRACE_OPEN; value = "{"; break;
+                case '[': type = TokenType.ANGLE_BRACKETS_OPEN; value = "["; break;
+                case ']': type = TokenType.ANGLE_BRACKETS_CLOSE; value = "]"; break;
+                case '}': type = TokenType.CURLY_BRACE_CLOSE; value = "}"; break;
+                case '$': type = TokenType.DOLLAR; value = "$"; break;
+                case '"': type = TokenType.DOUBLE_QUOTE; value = "\""; break;
             }
             if ( type != null ) {
                 parseBuffer(offset);
                 offset = scanner.offset();
                 scanner.next();
-                token( type , c , offset );
+                token( type , value , offset );
                 return;
             } 
             buffer.append( scanner.next() );                
@@ -104,11 +104,6 @@ public class Lexer implements ILexer
         tokens.add( new Token(t,offset ) );
     }
     
-    private void token(TokenType t,char value,int offset) 
-    {
-        tokens.add( new Token(t,Character.toString( value ) , offset ) );
-    }
-    
     private void token(TokenType t,String value,int offset) 
     {
         tokens.add( new Token(t,value , offset ) );
@@ -147,19 +142,19 @@ public class Lexer implements ILexer
     public Token peek()
     {
         parse();
-        return tokens.get(0);
+        return tokens.getFirst();
     }
 
     public boolean eof()
     {
         parse();
-        return tokens.get(0).is( TokenType.EOF );
+        return tokens.getFirst().is( TokenType.EOF );
     }
 
     public Token next()
     {
         parse();
-        return tokens.remove( 0 );
+        return tokens.removeFirst();
     }
 
     @Override
@@ -176,7 +171,7 @@ public class Lexer implements ILexer
     {
         if ( ! tokens.isEmpty() ) 
         {
-            scanner.setOffset( tokens.get(0).offset );
+            scanner.setOffset( tokens.getFirst().offset );
             tokens.clear();
         }
         this.ignoreWhitespace = nowIgnoreWhitespace;
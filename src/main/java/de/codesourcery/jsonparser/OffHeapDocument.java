@@ -0,0 +1,544 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import static de.codesourcery.jsonparser.TapeDocument.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.BooleanLiteral;
+import de.codesourcery.jsonparser.ast.JSONArray;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NullLiteral;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.PlaceholderExpression;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+
+/**
+ * Read-only JSON document that keeps its contents outside of the Java heap.
+ * 
+ * Uses the same tape layout as {@link TapeDocument}, except that tape and 
+ * UTF-8 encoded string contents are stored in direct byte buffers and offsets into the 
+ * string storage are byte offsets. Objects and arrays have a third header word holding the position 
+ * of their children's tape indices in a separate offset table, so children can be accessed in any order in constant time.
+ * Storage is split into chunks so documents may exceed 2 GB.
+ * 
+ * AST nodes are created on every access and not cached, so heap usage only depends
+ * on the nodes an application holds on to. Documents must be {@link #close() closed} 
+ * to release their memory immediately, navigating a closed document fails with an {@link IllegalStateException}. 
+ * 
+ * Documents must not be navigated by multiple threads without external synchronization.
+ * 
+ * @see Parser#parseOffHeap(CharSequence)
+ */
+public final class OffHeapDocument implements AutoCloseable
+{
+    static final int DEFAULT_CHUNK_SIZE = 1<<26;
+
+    private static final int INITIAL_CHUNK_SIZE = 4096;
+
+    // number of header words of objects and arrays
+    private static final int CONTAINER_HEADER = 3;
+
+    // sun.misc.Unsafe#invokeCleaner(ByteBuffer) if available
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static 
+    {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try 
+        {
+            final Class<?> clazz = Class.forName( "sun.misc.Unsafe" );
+            final Field field = clazz.getDeclaredField( "theUnsafe" );
+            field.setAccessible( true );
+            unsafe = field.get( null );
+            invokeCleaner = clazz.getMethod( "invokeCleaner" , ByteBuffer.class );
+        } 
+        catch(Exception | LinkageError e) 
+        {
+            // memory gets released by the garbage collector instead
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Region tape;
+    private final long tapeLength;
+    private final Region strings;
+    private final Region offsets;
+
+    private boolean closed;
+    private ASTNode root;
+
+    private OffHeapDocument(Region tape,long tapeLength,Region strings,Region offsets) 
+    {
+        this.tape = tape;
+        this.tapeLength = tapeLength;
+        this.strings = strings;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Returns the AST node for the document's top-level value.
+     */
+    public ASTNode root() 
+    {
+        ensureOpen();
+        if ( root == null ) {
+            root = node( 0 );
+        }
+        return root;
+    }
+
+    /**
+     * Returns the number of <code>long</code> words used by the tape.
+     */
+    public long tapeLength() {
+        return tapeLength;
+    }
+
+    /**
+     * Returns the number of bytes of off-heap memory held by this document.
+     */
+    public long allocatedBytes() {
+        return closed ? 0 : tape.capacity + strings.capacity + offsets.capacity;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Releases the off-heap memory. 
+     * 
+     * Nodes that have already been created stay usable but children 
+     * of objects and arrays can no longer be accessed.
+     */
+    @Override
+    public void close() 
+    {
+        if ( ! closed ) 
+        {
+            closed = true;
+            root = null;
+            tape.free();
+            strings.free();
+            offsets.free();
+        }
+    }
+
+    private void ensureOpen() 
+    {
+        if ( closed ) {
+            throw new IllegalStateException("Document has been closed");
+        }
+    }
+
+    private long word(long index) {
+        return tape.getLong( index << 3 );
+    }
+
+    private int type(long index) {
+        return (int) ( word( index ) >>> TYPE_SHIFT );
+    }
+
+    private long payload(long index) {
+        return word( index ) & PAYLOAD_MASK;
+    }
+
+    private String string(long index) {
+        return string( payload( index ) , word( index + 1 ) );
+    }
+
+    private String string(long offset,long length) 
+    {
+        final byte[] bytes = new byte[ (int) length ];
+        strings.get( offset , bytes );
+        return new String( bytes , StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Returns the tape index of the entry following the given one.
+     */
+    private static long skip(Region tape,long index) 
+    {
+        final long word = tape.getLong( index << 3 );
+        final int type = (int) ( word >>> TYPE_SHIFT );
+        switch( type ) 
+        {
+            case OBJECT:
+            case ARRAY:
+                return word & PAYLOAD_MASK;
+            case KEY:
+            case STRING:
+            case PLACEHOLDER:
+            case LONG:
+            case DOUBLE:
+            case BIG_INTEGER:
+                return index + 2;
+            case LONG_TEXT:
+            case DOUBLE_TEXT:
+                return index + 3;
+            case TRUE:
+            case FALSE:
+            case NULL:
+                return index + 1;
+            default:
+                throw new RuntimeException("Internal error, unhandled tape entry type "+type+" at index "+index);
+        }
+    }
+
+    private ASTNode node(long index) 
+    {
+        switch( type( index ) ) 
+        {
+            case OBJECT:
+                return new OffHeapObject( new Children( index , true ) );
+            case ARRAY:
+                return new JSONArray( new Children( index , false ) );
+            case STRING:
+                return new StringLiteral( string( index ) );
+            case PLACEHOLDER:
+                return new PlaceholderExpression( new Identifier( string( index ) ) );
+            case LONG:
+                return new NumberLiteral( word( index + 1 ) );
+            case DOUBLE:
+                return new NumberLiteral( Double.longBitsToDouble( word( index + 1 ) ) );
+            case LONG_TEXT:
+                return new NumberLiteral( word( index + 1 ) , string( payload( index ) , word( index + 2 ) ) );
+            case DOUBLE_TEXT:
+                return new NumberLiteral( Double.longBitsToDouble( word( index + 1 ) ) , string( payload( index ) , word( index + 2 ) ) );
+            case BIG_INTEGER:
+                final String text = string( index );
+                return new NumberLiteral( new BigInteger( text ) , text );
+            case TRUE:
+                return new BooleanLiteral( true );
+            case FALSE:
+                return new BooleanLiteral( false );
+            case NULL:
+                return new NullLiteral();
+            default:
+                throw new RuntimeException("Internal error, unhandled tape entry type "+type( index )+" at index "+index);
+        }
+    }
+
+    /**
+     * Children of an object or array, created on each access.
+     */
+    private final class Children extends AbstractList<ASTNode> implements RandomAccess 
+    {
+        private final boolean isObject;
+        private final int size;
+        // position of the first child in the offset table
+        private final long table;
+
+        public Children(long container,boolean isObject) 
+        {
+            this.isObject = isObject;
+            this.size = (int) word( container + 1 );
+            this.table = word( container + 2 );
+        }
+
+        private long child(int index) {
+            return offsets.getLong( ( table + index ) << 3 );
+        }
+
+        @Override
+        public ASTNode get(int index) 
+        {
+            if ( index < 0 || index >= size ) {
+                throw new IndexOutOfBoundsException( "Index "+index+" out of range [0,"+size+")" );
+            }
+            ensureOpen();
+            final long ptr = child( index );
+            if ( isObject ) {
+                return new KeyValue( new StringLiteral( string( ptr ) ) , node( ptr + 2 ) );
+            }
+            return node( ptr );
+        }
+
+        /**
+         * Compares the UTF-8 encoded key with the keys on the tape, without creating any nodes.
+         * 
+         * @see JSONObject#indexOfKey(String)
+         */
+        public int indexOfKey(String key) 
+        {
+            ensureOpen();
+            final byte[] bytes = key.getBytes( StandardCharsets.UTF_8 );
+            for ( int i = size - 1 ; i >= 0 ; i-- ) 
+            {
+                final long ptr = child( i );
+                if ( word( ptr + 1 ) == bytes.length && strings.contentEquals( payload( ptr ) , bytes ) ) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Object whose key lookups work directly on the tape.
+     */
+    private static final class OffHeapObject extends JSONObject 
+    {
+        private final Children members;
+
+        public OffHeapObject(Children members) 
+        {
+            super( members );
+            this.members = members;
+        }
+
+        @Override
+        public int indexOfKey(String key) {
+            return members.indexOfKey( key );
+        }
+    }
+
+    /**
+     * Writes a document, used by {@link TapeBuilder}.
+     */
+    static final class Writer implements TapeBuilder.Sink 
+    {
+        private final Region tape;
+        private final Region strings;
+        private final Region offsets;
+        private long size;
+        private long stringsLength;
+        private long offsetsLength;
+
+        public Writer(int chunkSize) 
+        {
+            this.tape = new Region( chunkSize );
+            this.strings = new Region( chunkSize );
+            this.offsets = new Region( chunkSize );
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void add(long word) 
+        {
+            tape.ensureCapacity( ( size + 1 ) << 3 );
+            tape.putLong( size << 3 , word );
+            size++;
+        }
+
+        @Override
+        public long get(long index) {
+            return tape.getLong( index << 3 );
+        }
+
+        @Override
+        public void set(long index, long word) {
+            tape.putLong( index << 3 , word );
+        }
+
+        @Override
+        public void startContainer() {
+            add( 0 ); // position in the offset table, written when the container is closed
+        }
+
+        @Override
+        public void endContainer(long index) 
+        {
+            final boolean isObject = get( index ) >>> TYPE_SHIFT == OBJECT;
+            final long count = get( index + 1 );
+            offsets.ensureCapacity( ( offsetsLength + count ) << 3 );
+            set( index + 2 , offsetsLength );
+            long ptr = index + CONTAINER_HEADER;
+            for ( long i = 0 ; i < count ; i++ ) 
+            {
+                offsets.putLong( offsetsLength++ << 3 , ptr );
+                ptr = skip( tape , isObject ? ptr + 2 : ptr );
+            }
+        }
+
+        @Override
+        public long stringsLength() {
+            return stringsLength;
+        }
+
+        @Override
+        public long append(CharSequence s) 
+        {
+            final byte[] bytes = s.toString().getBytes( StandardCharsets.UTF_8 );
+            strings.ensureCapacity( stringsLength + bytes.length );
+            strings.put( stringsLength , bytes );
+            stringsLength += bytes.length;
+            return bytes.length;
+        }
+
+        public OffHeapDocument finish() {
+            return new OffHeapDocument( tape , size , strings , offsets );
+        }
+
+        public void free() 
+        {
+            tape.free();
+            strings.free();
+            offsets.free();
+        }
+    }
+
+    /**
+     * Growable storage made of equally-sized direct byte buffers.
+     * 
+     * As long as the storage fits into a single chunk, that chunk grows 
+     * by doubling its size starting with {@link #INITIAL_CHUNK_SIZE} bytes so small documents 
+     * do not allocate a full chunk.
+     */
+    private static final class Region 
+    {
+        private final int chunkSize;
+        private final int shift;
+        private final int mask;
+
+        private ByteBuffer[] chunks = new ByteBuffer[1];
+        private int count;
+        private long capacity;
+
+        public Region(int chunkSize) 
+        {
+            if ( chunkSize < 8 || Integer.bitCount( chunkSize ) != 1 ) {
+                throw new IllegalArgumentException("Chunk size must be a power of two >= 8");
+            }
+            this.chunkSize = chunkSize;
+            this.shift = Integer.numberOfTrailingZeros( chunkSize );
+            this.mask = chunkSize - 1;
+            chunks[0] = allocate( Math.min( INITIAL_CHUNK_SIZE , chunkSize ) );
+            count = 1;
+            capacity = chunks[0].capacity();
+        }
+
+        private static ByteBuffer allocate(int size) {
+            return ByteBuffer.allocateDirect( size ).order( ByteOrder.nativeOrder() );
+        }
+
+        public void ensureCapacity(long required) 
+        {
+            while ( required > capacity ) 
+            {
+                if ( count == 1 && capacity < chunkSize ) 
+                {
+                    final ByteBuffer bigger = allocate( (int) Math.min( capacity * 2 , chunkSize ) );
+                    bigger.put( chunks[0].duplicate() ).clear();
+                    free( chunks[0] );
+                    chunks[0] = bigger;
+                    capacity = bigger.capacity();
+                } 
+                else 
+                {
+                    if ( count == chunks.length ) {
+                        chunks = Arrays.copyOf( chunks , count * 2 );
+                    }
+                    chunks[ count++ ] = allocate( chunkSize );
+                    capacity += chunkSize;
+                }
+            }
+        }
+
+        public long getLong(long offset) {
+            return chunks[ (int) ( offset >>> shift ) ].getLong( (int) ( offset & mask ) );
+        }
+
+        public void putLong(long offset,long value) {
+            chunks[ (int) ( offset >>> shift ) ].putLong( (int) ( offset & mask ) , value );
+        }
+
+        public void put(long offset,byte[] src) 
+        {
+            for ( int done = 0 ; done < src.length ; ) 
+            {
+                final ByteBuffer chunk = chunks[ (int) ( ( offset + done ) >>> shift ) ].duplicate();
+                final int pos = (int) ( ( offset + done ) & mask );
+                final int len = Math.min( src.length - done , chunk.capacity() - pos );
+                chunk.position( pos );
+                chunk.put( src , done , len );
+                done += len;
+            }
+        }
+
+        public void get(long offset,byte[] dst) 
+        {
+            for ( int done = 0 ; done < dst.length ; ) 
+            {
+                final ByteBuffer chunk = chunks[ (int) ( ( offset + done ) >>> shift ) ].duplicate();
+                final int pos = (int) ( ( offset + done ) & mask );
+                final int len = Math.min( dst.length - done , chunk.capacity() - pos );
+                chunk.position( pos );
+                chunk.get( dst , done , len );
+                done += len;
+            }
+        }
+
+        public boolean contentEquals(long offset,byte[] bytes) 
+        {
+            for ( int i = 0 ; i < bytes.length ; i++ ) 
+            {
+                final long pos = offset + i;
+                if ( chunks[ (int) ( pos >>> shift ) ].get( (int) ( pos & mask ) ) != bytes[i] ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void free() 
+        {
+            for ( int i = 0 ; i < count ; i++ ) {
+                free( chunks[i] );
+            }
+            chunks = null;
+            count = 0;
+        }
+
+        private static void free(ByteBuffer buffer) 
+        {
+            if ( INVOKE_CLEANER != null ) 
+            {
+                try {
+                    INVOKE_CLEANER.invoke( UNSAFE , buffer );
+                } catch (ReflectiveOperationException e) {
+                    throw new RuntimeException("Internal error, failed to release direct buffer",e);
+                }
+            }
+        }
+    }
+}
@@ -15,317 +15,324 @@
  */
 package de.codesourcery.jsonparser;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Stack;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
-import de.codesourcery.jsonparser.Token.TokenType;
 import de.codesourcery.jsonparser.ast.ASTNode;
-import de.codesourcery.jsonparser.ast.BooleanLiteral;
-import de.codesourcery.jsonparser.ast.JSONArray;
-import de.codesourcery.jsonparser.ast.JSONObject;
-import de.codesourcery.jsonparser.ast.KeyValue;
-import de.codesourcery.jsonparser.ast.NullLiteral;
-import de.codesourcery.jsonparser.ast.NumberLiteral;
-import de.codesourcery.jsonparser.ast.PlaceholderExpression;
-import de.codesourcery.jsonparser.ast.StringLiteral;
-import de.codesourcery.jsonparser.util.CharStream;
 import de.codesourcery.jsonparser.util.MyParseException;
+import de.codesourcery.jsonparser.util.ReaderScanner;
+import de.codesourcery.jsonparser.util.StringPool;
 import de.codesourcery.jsonparser.util.StringScanner;
+import de.codesourcery.jsonparser.util.UTF8Scanner;
 
+/**
+ * JSON parser.
+ * 
+ * Instances are not thread-safe but may be reused, subsequent calls recycle the scanner, lexer and 
+ * buffers of previous ones. Use {@link JSONParsers} to share a parser configuration across threads.
+ */
 public class Parser
 {
-    private ILexer lexer;
+    /**
+     * Recycled buffers that grew beyond this many elements while parsing a large document
+     * are replaced with small ones afterwards so they do not stay allocated.
+     */
+    static final int MAX_RETAINED_CAPACITY = 64 * 1024;
 
     private boolean supportsPlaceholders = true;
-    
-    private Stack<ASTNode> stack = new Stack<>();
+
+    private int maxDepth = JSONEventReader.DEFAULT_MAX_DEPTH;
+
+    private StringPool stringPool;
+    private boolean poolStringValues;
+
+    private final ASTBuilder builder = new ASTBuilder();
+
+    // recycled across invocations
+    private StringScanner stringScanner;
+    private ReaderScanner readerScanner;
+    private CursorLexer cursorLexer;
+    private JSONEventReader eventReader;
+    private TapeBuilder tapeBuilder;
 
     public ASTNode parse(String s) 
     {
-        StringScanner scanner = new StringScanner(s);
-        return parse( new Lexer(scanner ) );
+        return parse( s , 0 , s.length() );
+    }
+
+    public ASTNode parse(CharSequence s) 
+    {
+        return parse( s , 0 , s.length() );
+    }
+
+    /**
+     * Parses a region of a character sequence.
+     * 
+     * Offsets reported by {@link MyParseException} are relative to the start of the sequence.
+     */
+    public ASTNode parse(CharSequence s,int offset,int length) 
+    {
+        // strings are immutable so string values can reference the input instead of copying it
+        return parse( cursorLexer( stringScanner( s , offset , length ) ) , s instanceof String ? s : null );
+    }
+
+    public ASTNode parse(Reader reader) 
+    {
+        return parse( readerScanner( reader ) );
+    }
+
+    public ASTNode parse(IScanner scanner) 
+    {
+        return parse( cursorLexer( scanner ) );
+    }
+
+    public ASTNode parse(Path file) throws IOException 
+    {
+        try ( FileChannel channel = FileChannel.open( file , StandardOpenOption.READ ) ) {
+            return parse( channel );
+        }
+    }
+
+    /**
+     * Parses UTF-8 encoded JSON from a memory-mapped file channel.
+     * 
+     * Error offsets are byte offsets into the file.
+     */
+    public ASTNode parse(FileChannel channel) throws IOException 
+    {
+        return parse( UTF8Scanner.map( channel ) );
     }
     
     public ASTNode parse(ILexer lexer) {
+        return parse( new CursorLexerAdapter( lexer ) );
+    }
 
-        this.lexer = lexer;
-        stack.clear();
-        parseObject();
-        if ( ! lexer.eof() ) {
-            throw new MyParseException("Garbage at end of input",lexer.peek().offset);
-        }
-        if ( stack.isEmpty() ) {
-            throw new MyParseException("Premature end of input",lexer.peek().offset);
-        }
-        return stack.pop();
+    public ASTNode parse(ICursorLexer lexer) 
+    {
+        return parse( lexer , null );
     }
 
-    private Token consume(TokenType t) 
+    private ASTNode parse(ICursorLexer lexer,CharSequence source) 
     {
-        if ( ! lexer.peek().is( t ) ) 
+        final JSONEventReader reader = eventReader( lexer );
+        builder.setStringPool( stringPool , poolStringValues );
+        builder.setSource( source );
+        // pooled values need their text anyway
+        reader.setSource( poolStringValues ? null : source );
+        try 
+        {
+            final ASTNode result = builder.build( reader );
+            // fails if there is garbage at the end of the input
+            reader.next();
+            return result;
+        } 
+        finally 
         {
-            throw new MyParseException("Expected "+t+" but got "+lexer.peek(),lexer.peek().offset);
+            builder.setSource( null );
+            releaseInput();
         }
-        return lexer.next();
     }
 
-    private boolean expect(TokenType t) 
+    /**
+     * Parses JSON into a compact {@link TapeDocument} instead of an AST.
+     */
+    public TapeDocument parseTape(CharSequence s) 
     {
-        if ( lexer.peek().is( t ) ) {
-            return true;
-        }
-        return false;
+        return parseTape( s , 0 , s.length() );
     }
 
-    private static boolean isHexDigit(char c) 
+    public TapeDocument parseTape(CharSequence s,int offset,int length) 
     {
-        c = Character.toLowerCase( c ); 
-        if ( Character.isDigit( c ) ) {
-            return true;
-        }
-        return c >= 'a' && c <= 'f';
+        return parseTape( cursorLexer( stringScanner( s , offset , length ) ) );
     }
-    
-    private boolean parseString() 
+
+    public TapeDocument parseTape(Reader reader) 
     {
-        if (expect( TokenType.DOUBLE_QUOTE ) ) 
+        return parseTape( cursorLexer( readerScanner( reader ) ) );
+    }
+
+    public TapeDocument parseTape(ICursorLexer lexer) 
+    {
+        if ( tapeBuilder == null ) {
+            tapeBuilder = new TapeBuilder();
+        }
+        try 
         {
-            final StringBuilder buffer = new StringBuilder();
-            consume( TokenType.DOUBLE_QUOTE );
+            final JSONEventReader reader = eventReader( lexer );
+            final TapeDocument result = tapeBuilder.build( reader );
+            // fails if there is garbage at the end of the input
+            reader.next();
+            return result;
+        } 
+        finally {
+            releaseInput();
+        }
+    }
 
-            if ( lexer.peek().isNot(TokenType.DOUBLE_QUOTE ) ) 
+    /**
+     * Parses JSON into an {@link OffHeapDocument} that keeps its contents outside of the Java heap.
+     * 
+     * The caller is responsible for closing the returned document.
+     */
+    public OffHeapDocument parseOffHeap(CharSequence s) 
+    {
+        return parseOffHeap( cursorLexer( stringScanner( s , 0 , s.length() ) ) );
+    }
+
+    public OffHeapDocument parseOffHeap(Reader reader) 
+    {
+        return parseOffHeap( cursorLexer( readerScanner( reader ) ) );
+    }
+
+    public OffHeapDocument parseOffHeap(ICursorLexer lexer) 
+    {
+        if ( tapeBuilder == null ) {
+            tapeBuilder = new TapeBuilder();
+        }
+        try 
+        {
+            final JSONEventReader reader = eventReader( lexer );
+            final OffHeapDocument result = tapeBuilder.buildOffHeap( reader );
+            try {
+                // fails if there is garbage at the end of the input
+                reader.next();
+            } 
+            catch(RuntimeException e) 
             {
-                lexer.setIgnoreWhitespace( false );
-                try 
-                {
-                    final CharStream stream = new CharStream(lexer);
-                    while (  stream.hasNext() ) 
-                    {
-                        if ( ! stream.escaped && stream.token.is(TokenType.BACKSLASH) ) {
-                            stream.next();
-                            stream.escaped = true;
-                            continue;
-                        }
-                        char c = stream.next();
-                        if ( stream.escaped ) 
-                        {
-                            stream.escaped = false;
-                            switch( c ) {
-                                case 'u':
-                                    buffer.append( "\\u" );
-                                    for ( int i = 0 ; i < 4 ; i++ ) 
-                                    {
-                                        if ( ! stream.hasNext() ) {
-                                            throw new MyParseException("\\u requires 4 hex digits" , stream.offset()-1 );
-                                        }
-                                        c = stream.next(); 
-                                        if ( ! isHexDigit( c ) ) {
-                                            throw new MyParseException("\\u requires 4 hex digits" , stream.offset()-1 );
-                                        }
-                                        buffer.append(c);
-                                    }
-                                    continue;
-                                case '$':
-                                    if ( supportsPlaceholders ) {
-                                        buffer.append("$");
-                                        continue;                                           
-                                    }
-                                    throw new MyParseException("Invalid escape sequence" , stream.offset()-1 );                                    
-                                case '"':
-                                case '\\':
-                                case '/':
-                                case 'b':
-                                case 'f':
-                                case 'n':
-                                case 'r':
-                                case 't':
-                                    buffer.append("\\");
-                                    buffer.append( c );
-                                    continue;            
-                                default:
-                                    throw new MyParseException("Invalid escape sequence" , stream.offset()-1 );
-                            }
-                        }
-                        buffer.append( c  );
-                        stream.escaped = false;
-                    }
-                } finally {
-                    lexer.setIgnoreWhitespace( true );
-                }
+                result.close();
+                throw e;
             }
+            return result;
+        } 
+        finally {
+            releaseInput();
+        }
+    }
 
-            consume(TokenType.DOUBLE_QUOTE);
-            stack.push( new StringLiteral( buffer.toString() ) );
-            return true;
+    private StringScanner stringScanner(CharSequence s,int offset,int length) 
+    {
+        if ( stringScanner == null ) {
+            stringScanner = new StringScanner( s , offset , length );
+        } else {
+            stringScanner.reset( s , offset , length );
+        }
+        return stringScanner;
+    }
+
+    private ReaderScanner readerScanner(Reader reader) 
+    {
+        if ( readerScanner == null ) {
+            readerScanner = new ReaderScanner( reader );
+        } else {
+            readerScanner.reset( reader );
         }
-        return false;
+        return readerScanner;
     }
 
-    private boolean parseArray() 
+    private CursorLexer cursorLexer(IScanner scanner) 
     {
-        if ( lexer.peek().is(TokenType.ANGLE_BRACKETS_OPEN) ) 
+        try 
         {
-            consume(TokenType.ANGLE_BRACKETS_OPEN);
-            final List<ASTNode> nodes = new ArrayList<>();
-            boolean expectedingMore = false;
-            while ( ! lexer.eof() && ! lexer.peek().is(TokenType.ANGLE_BRACKETS_CLOSE) ) 
-            {
-                // parse value
-                if ( ! parseValue() ) {
-                    throw new MyParseException("Expected a value",lexer.peek().offset);
-                }
-                expectedingMore = false;
-                nodes.add( stack.pop() );
-                if ( lexer.peek().is(TokenType.COMMA) ) 
-                {
-                    consume(TokenType.COMMA);
-                    expectedingMore  = true;
-                }
+            if ( cursorLexer == null ) {
+                cursorLexer = new CursorLexer( scanner );
+            } else {
+                cursorLexer.reset( scanner );
             }
-            if ( expectedingMore ) {
-                throw new MyParseException("JSON array requires an additional value" , lexer.peek().offset );
-            }
-            consume(TokenType.ANGLE_BRACKETS_CLOSE);
-
-            final JSONArray array = new JSONArray();
-            array.add( nodes );
-            stack.push( array );
-            return true;
+        } 
+        catch(RuntimeException e) 
+        {
+            // lexer already fetches the first token
+            releaseInput();
+            throw e;
         }
-        return false;
+        return cursorLexer;
     }
 
-    private boolean parseValue() 
+    /**
+     * Drops all references to the last input so that recycled objects
+     * do not keep it reachable, only their buffers are kept unless they grew too large.
+     */
+    private void releaseInput() 
     {
-        if ( parseString() ) {
-            return true;
+        if ( stringScanner != null ) {
+            stringScanner.reset( "" , 0 , 0 );
         }
-        
-        if ( lexer.peek().is( TokenType.TRUE ) || lexer.peek().is( TokenType.FALSE ) ) {
-            final Token tok = lexer.next();
-            stack.push( new BooleanLiteral( tok.is(TokenType.TRUE ) ) );
-            return true;
-        }           
-
-        if ( lexer.peek().is( TokenType.NULL ) ) {
-            lexer.next();
-            stack.push( new NullLiteral() );
-            return true;
+        if ( readerScanner != null ) {
+            readerScanner.release();
         }
-        
-        if ( parseNumber() ) {
-            return true;
-        }         
-        
-        if ( supportsPlaceholders && parsePlaceholderExpression() ) {
-            return true;
+        if ( cursorLexer != null ) {
+            cursorLexer.release();
         }
-        
-        if ( parseObject() ) {
-            return true;
+        if ( eventReader != null ) {
+            eventReader.release();
+        }
+        if ( tapeBuilder != null ) {
+            tapeBuilder.release();
         }
-
-        if ( parseArray() ) {
-            return true;
-        }        
-       
-        return false;
     }
 
-    private boolean parsePlaceholderExpression() 
+    private JSONEventReader eventReader(ICursorLexer lexer) 
     {
-        if ( lexer.peek().is(TokenType.DOLLAR ) ) 
-        {
-            consume(TokenType.DOLLAR);
-            consume(TokenType.CURLY_BRACE_OPEN);
-            final StringBuffer buffer = new StringBuffer();
-            while ( ! lexer.eof() && ! lexer.peek().is(TokenType.CURLY_BRACE_CLOSE)) {
-                final Token tok = lexer.next();
-                if ( ! Identifier.isValid( tok.value ) ) 
-                {
-                    throw new MyParseException("Invalid characters in identifier name",tok.offset + Identifier.getFirstInvalidIndex( tok.value ) );
-                }
-                buffer.append( tok.value );
-            }
-            if ( buffer.length() == 0 ) {
-                throw new MyParseException("Missing identifier name",lexer.peek().offset);
-            }
-            consume(TokenType.CURLY_BRACE_CLOSE);
-            stack.push( new PlaceholderExpression( new Identifier( buffer.toString() ) ) );
-            return true;
+        if ( eventReader == null ) {
+            eventReader = new JSONEventReader( lexer );
+        } else {
+            eventReader.reset( lexer );
         }
-        return false;
+        eventReader.setSupportsPlaceholders( supportsPlaceholders );
+        eventReader.setMaxDepth( maxDepth );
+        return eventReader;
     }
-    
-    private boolean parseNumber() {
 
-        if ( lexer.peek().is(TokenType.DIGITS ) || lexer.peek().is(TokenType.MINUS) ) 
-        {
-            String v1  = "";
-            if ( lexer.peek().is(TokenType.MINUS) ) 
-            {
-                v1 = "-";
-                lexer.next();
-                if ( ! lexer.peek().is(TokenType.DIGITS) ) {
-                    throw new MyParseException("Expected digits but got "+lexer.peek(),lexer.peek().offset);
-                }
-            }
-            v1 += lexer.next().value;
-            String v2 = null;
-            if ( lexer.peek().is(TokenType.DOT ) ) 
-            {
-                consume(TokenType.DOT);
-                if ( ! lexer.peek().is(TokenType.DIGITS) ) {
-                    throw new MyParseException("Expected digits but got "+lexer.peek(),lexer.peek().offset);
-                }
-                v2 = lexer.next().value;
-            }
-            stack.push( new NumberLiteral( v2 == null ? v1 : v1+"."+v2 ) );
-            return true;
+    /**
+     * Sets the maximum number of nested objects and arrays, deeper nesting fails with a {@link MyParseException}.
+     */
+    public void setMaxDepth(int maxDepth)
+    {
+        if ( maxDepth < 1 ) {
+            throw new IllegalArgumentException("Max. depth must be >= 1");
         }
-        return false;
+        this.maxDepth = maxDepth;
     }
 
-    private boolean parseObject() {
+    public int getMaxDepth()
+    {
+        return maxDepth;
+    }
+    
+    /**
+     * Sets a pool for sharing the strings of object keys across all documents parsed with it.
+     * 
+     * A pool may be shared by several parsers, also across threads.
+     * 
+     * @param stringPool pool or <code>null</code> to disable pooling
+     * @see #setPoolStringValues(boolean)
+     */
+    public void setStringPool(StringPool stringPool)
+    {
+        this.stringPool = stringPool;
+    }
 
-        if ( expect( TokenType.CURLY_BRACE_OPEN ) ) 
-        {
-            consume(TokenType.CURLY_BRACE_OPEN);
+    public StringPool getStringPool()
+    {
+        return stringPool;
+    }
 
-            final JSONObject object = new JSONObject();
-            
-            boolean needsMore = false;
-            while ( ! lexer.eof() && ! lexer.peek().is(TokenType.CURLY_BRACE_CLOSE ) ) 
-            {
-                if ( parseString() ) 
-                {
-                    final StringLiteral lit = (StringLiteral) stack.pop();
-                    consume(TokenType.COLON);
-                    if ( ! parseValue() ) {
-                        throw new MyParseException("Found no valid value",lexer.peek().offset);
-                    }
-                    needsMore = false;
-                    final ASTNode value = stack.pop();
-                    object.add( new KeyValue( lit , value ) );
-                    if ( lexer.peek().is(TokenType.COMMA ) ) {
-                        lexer.next();
-                        needsMore = true;
-                    }
-                } else {
-                    break;
-                }
-            }
-            if ( needsMore ) {
-                throw new MyParseException("Expected another value",lexer.peek().offset);
-            }
-            stack.push( object );
-            consume(TokenType.CURLY_BRACE_CLOSE);
-            return true;
-        }
-        return false;
+    /**
+     * Sets whether short string values should be pooled as well, requires a {@link #setStringPool(StringPool) string pool}.
+     */
+    public void setPoolStringValues(boolean poolStringValues)
+    {
+        this.poolStringValues = poolStringValues;
     }
-    
+
+    public boolean isPoolStringValues()
+    {
+        return poolStringValues;
+    }
+
     public void setSupportsPlaceholders(boolean supportsPlaceholders)
     {
         this.supportsPlaceholders = supportsPlaceholders;
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import java.io.Reader;
+
+import de.codesourcery.jsonparser.util.ReaderScanner;
+import de.codesourcery.jsonparser.util.StringScanner;
+
+/**
+ * Parser that reports the contents of a JSON document to a {@link JSONHandler} 
+ * while parsing instead of building an AST.
+ */
+public class PushParser
+{
+    private boolean supportsPlaceholders = true;
+
+    public void parse(String s,JSONHandler handler) 
+    {
+        parse( new CursorLexer( new StringScanner( s ) ) , handler );
+    }
+
+    public void parse(Reader reader,JSONHandler handler) 
+    {
+        parse( new CursorLexer( new ReaderScanner( reader ) ) , handler );
+    }
+
+    public void parse(ILexer lexer,JSONHandler handler) 
+    {
+        parse( new CursorLexerAdapter( lexer ) , handler );
+    }
+
+    public void parse(ICursorLexer lexer,JSONHandler handler) 
+    {
+        final JSONEventReader reader = new JSONEventReader( lexer );
+        reader.setSupportsPlaceholders( supportsPlaceholders );
+        while ( reader.hasNext() ) 
+        {
+            switch( reader.next() ) 
+            {
+                case START_OBJECT: 
+                    handler.startObject(); 
+                    break;
+                case END_OBJECT: 
+                    handler.endObject(); 
+                    break;
+                case START_ARRAY: 
+                    handler.startArray(); 
+                    break;
+                case END_ARRAY: 
+                    handler.endArray(); 
+                    break;
+                case KEY: 
+                    handler.keyValue( reader.getTextBuffer() ); 
+                    break;
+                case STRING: 
+                    handler.stringLiteral( reader.getTextBuffer() ); 
+                    break;
+                case NUMBER:
+                    if ( reader.isLong() ) {
+                        handler.numberLiteral( reader.getLong() );
+                    } else {
+                        handler.numberLiteral( reader.getDouble() , reader.getTextBuffer() );
+                    }
+                    break;
+                case BOOLEAN: 
+                    handler.booleanLiteral( reader.getBoolean() ); 
+                    break;
+                case NULL: 
+                    handler.nullLiteral(); 
+                    break;
+                case PLACEHOLDER: 
+                    handler.placeholderExpression( reader.getTextBuffer() ); 
+                    break;
+                case END_DOCUMENT:
+                    break;
+            }
+        }
+    }
+
+    public void setSupportsPlaceholders(boolean supportsPlaceholders)
+    {
+        this.supportsPlaceholders = supportsPlaceholders;
+    }
+
+    public boolean isSupportsPlaceholders()
+    {
+        return supportsPlaceholders;
+    }
+}
@@ -0,0 +1,324 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import static de.codesourcery.jsonparser.TapeDocument.*;
+
+import java.util.Arrays;
+
+import de.codesourcery.jsonparser.JSONEventReader.Event;
+
+/**
+ * Builds {@link TapeDocument}s and {@link OffHeapDocument}s from the events returned by a {@link JSONEventReader}.
+ * 
+ * Instances are not thread-safe but may be reused.
+ */
+public class TapeBuilder
+{
+    /**
+     * Destination of tape words and string contents.
+     */
+    interface Sink 
+    {
+        public long size();
+
+        public void add(long word);
+
+        public long get(long index);
+
+        public void set(long index,long word);
+
+        /**
+         * Invoked after the header words of an object or array have been added.
+         */
+        public void startContainer();
+
+        /**
+         * Invoked after the end index of an object or array has been patched.
+         */
+        public void endContainer(long index);
+
+        public long stringsLength();
+
+        /**
+         * Appends a string and returns its length in the units used by {@link #stringsLength()}.
+         */
+        public long append(CharSequence s);
+    }
+
+    private final HeapSink heap = new HeapSink();
+
+    private Sink sink;
+
+    // tape indices of the objects and arrays that are currently being built
+    private static final int DEFAULT_DEPTH = 16;
+
+    private long[] containers = new long[ DEFAULT_DEPTH ];
+    private int depth;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Reads the next value from an event reader and returns it as a tape.
+     *
+     * When the next event starts an object or array, all events up to and including 
+     * the matching end event are consumed.
+     */
+    public TapeDocument build(JSONEventReader reader) 
+    {
+        heap.reset();
+        write( reader , heap );
+        return new TapeDocument( Arrays.copyOf( heap.tape , heap.size ) , heap.strings.toString() );
+    }
+
+    /**
+     * Reads the next value from an event reader and stores it off-heap.
+     * 
+     * @see #build(JSONEventReader)
+     */
+    public OffHeapDocument buildOffHeap(JSONEventReader reader) {
+        return buildOffHeap( reader , OffHeapDocument.DEFAULT_CHUNK_SIZE );
+    }
+
+    OffHeapDocument buildOffHeap(JSONEventReader reader,int chunkSize) 
+    {
+        final OffHeapDocument.Writer writer = new OffHeapDocument.Writer( chunkSize );
+        try {
+            write( reader , writer );
+        } 
+        catch(RuntimeException e) 
+        {
+            writer.free();
+            throw e;
+        }
+        return writer.finish();
+    }
+
+    /**
+     * Replaces buffers that grew larger than {@link Parser#MAX_RETAINED_CAPACITY} with small ones.
+     */
+    void release() 
+    {
+        heap.release();
+        if ( containers.length > Parser.MAX_RETAINED_CAPACITY ) {
+            containers = new long[ DEFAULT_DEPTH ];
+        }
+        if ( buffer.capacity() > Parser.MAX_RETAINED_CAPACITY ) 
+        {
+            buffer.setLength( 0 );
+            buffer.trimToSize();
+        }
+    }
+
+    private void write(JSONEventReader reader,Sink sink) 
+    {
+        this.sink = sink;
+        depth = 0;
+        try 
+        {
+            do
+            {
+                final Event event = reader.next();
+                switch( event ) 
+                {
+                    case START_OBJECT:
+                        startContainer( OBJECT );
+                        continue;
+                    case START_ARRAY:
+                        startContainer( ARRAY );
+                        continue;
+                    case KEY:
+                        string( KEY , reader.getTextBuffer() );
+                        continue;
+                    case END_OBJECT:
+                    case END_ARRAY:
+                        final long start = containers[ --depth ];
+                        sink.set( start , entry( sink.get( start ) >>> TYPE_SHIFT == OBJECT ? OBJECT : ARRAY , sink.size() ) );
+                        sink.endContainer( start );
+                        break;
+                    case STRING:
+                        countChild();
+                        string( STRING , reader.getTextBuffer() );
+                        break;
+                    case NUMBER:
+                        countChild();
+                        number( reader );
+                        break;
+                    case BOOLEAN:
+                        countChild();
+                        sink.add( entry( reader.getBoolean() ? TRUE : FALSE , 0 ) );
+                        break;
+                    case NULL:
+                        countChild();
+                        sink.add( entry( NULL , 0 ) );
+                        break;
+                    case PLACEHOLDER:
+                        countChild();
+                        string( PLACEHOLDER , reader.getPlaceholder().name );
+                        break;
+                    case END_DOCUMENT:
+                        throw new IllegalStateException("No more values to read");
+                    default:
+                        throw new RuntimeException("Internal error, unhandled event "+event);
+                }
+            } while ( depth > 0 );
+        } finally {
+            this.sink = null;
+        }
+    }
+
+    private void startContainer(int type) 
+    {
+        countChild();
+        if ( depth == containers.length ) {
+            containers = Arrays.copyOf( containers , depth * 2 );
+        }
+        containers[ depth++ ] = sink.size();
+        sink.add( entry( type , 0 ) ); // end index gets patched when the container is closed
+        sink.add( 0 ); // child count
+        sink.startContainer();
+    }
+
+    private void countChild() 
+    {
+        if ( depth > 0 ) 
+        {
+            final long index = containers[ depth - 1 ] + 1;
+            sink.set( index , sink.get( index ) + 1 );
+        }
+    }
+
+    private void string(int type,CharSequence value) 
+    {
+        final long offset = sink.stringsLength();
+        final long length = sink.append( value );
+        sink.add( entry( type , offset ) );
+        sink.add( length );
+    }
+
+    private void number(JSONEventReader reader) 
+    {
+        if ( reader.isLong() ) 
+        {
+            final long value = reader.getLong();
+            buffer.setLength( 0 );
+            buffer.append( value );
+            numberEntry( LONG , LONG_TEXT , value , reader );
+        } 
+        else if ( reader.isIntegral() ) 
+        {
+            string( BIG_INTEGER , reader.getTextBuffer() );
+        } 
+        else 
+        {
+            final double value = reader.getDouble();
+            buffer.setLength( 0 );
+            buffer.append( value );
+            numberEntry( DOUBLE , DOUBLE_TEXT , Double.doubleToRawLongBits( value ) , reader );
+        }
+    }
+
+    /*
+     * Expects the default rendering of the number in 'buffer', the source text
+     * is only stored when it differs.
+     */
+    private void numberEntry(int type,int typeWithText,long bits,JSONEventReader reader) 
+    {
+        if ( reader.textEquals( buffer ) ) 
+        {
+            sink.add( entry( type , 0 ) );
+            sink.add( bits );
+        } 
+        else 
+        {
+            final long offset = sink.stringsLength();
+            final long length = sink.append( reader.getTextBuffer() );
+            sink.add( entry( typeWithText , offset ) );
+            sink.add( bits );
+            sink.add( length );
+        }
+    }
+
+    private static final class HeapSink implements Sink 
+    {
+        private static final int DEFAULT_TAPE_SIZE = 1024;
+
+        private long[] tape = new long[ DEFAULT_TAPE_SIZE ];
+        private int size;
+        private final StringBuilder strings = new StringBuilder();
+
+        public void reset() 
+        {
+            size = 0;
+            strings.setLength( 0 );
+        }
+
+        public void release() 
+        {
+            reset();
+            if ( tape.length > Parser.MAX_RETAINED_CAPACITY ) {
+                tape = new long[ DEFAULT_TAPE_SIZE ];
+            }
+            if ( strings.capacity() > Parser.MAX_RETAINED_CAPACITY ) {
+                strings.trimToSize();
+            }
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void add(long word) 
+        {
+            if ( size == tape.length ) {
+                tape = Arrays.copyOf( tape , size * 2 );
+            }
+            tape[ size++ ] = word;
+        }
+
+        @Override
+        public long get(long index) {
+            return tape[ (int) index ];
+        }
+
+        @Override
+        public void set(long index,long word) {
+            tape[ (int) index ] = word;
+        }
+
+        @Override
+        public void startContainer() {
+        }
+
+        @Override
+        public void endContainer(long index) {
+        }
+
+        @Override
+        public long stringsLength() {
+            return strings.length();
+        }
+
+        @Override
+        public long append(CharSequence s) 
+        {
+            strings.append( s );
+            return s.length();
+        }
+    }
+}
\ No newline at end of file
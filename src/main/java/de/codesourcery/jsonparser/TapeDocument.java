@@ -0,0 +1,250 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.BooleanLiteral;
+import de.codesourcery.jsonparser.ast.JSONArray;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NullLiteral;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.PlaceholderExpression;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+
+/**
+ * Compact, read-only JSON document stored as a flat tape of <code>long</code> words.
+ * 
+ * AST nodes are only created when they are navigated to, see {@link #root()}.
+ * 
+ * Each tape entry starts with a word holding the entry type in the upper 8 bits and
+ * an entry-specific payload in the lower 56 bits:
+ * 
+ * <pre>
+ * OBJECT, ARRAY            payload = tape index after the last child, 2nd word = number of children (object members)
+ * KEY, STRING, PLACEHOLDER payload = offset into the string pool, 2nd word = length
+ * LONG                     2nd word = value
+ * DOUBLE                   2nd word = value as raw long bits
+ * LONG_TEXT, DOUBLE_TEXT   like LONG / DOUBLE followed by a 3rd word holding the length of the source text,
+ *                          payload = offset of the source text in the string pool
+ * BIG_INTEGER              payload = offset of the source text, 2nd word = length
+ * TRUE, FALSE, NULL        single word
+ * </pre>
+ * 
+ * Object members are stored as a KEY entry followed by the value entry. 
+ * String contents are stored in a single string pool.
+ * 
+ * Created nodes are cached, documents must not be navigated by multiple threads
+ * without external synchronization.
+ * 
+ * @see Parser#parseTape(CharSequence)
+ */
+public final class TapeDocument
+{
+    static final int OBJECT = 1;
+    static final int ARRAY = 2;
+    static final int KEY = 3;
+    static final int STRING = 4;
+    static final int PLACEHOLDER = 5;
+    static final int LONG = 6;
+    static final int DOUBLE = 7;
+    static final int LONG_TEXT = 8;
+    static final int DOUBLE_TEXT = 9;
+    static final int BIG_INTEGER = 10;
+    static final int TRUE = 11;
+    static final int FALSE = 12;
+    static final int NULL = 13;
+
+    static final int TYPE_SHIFT = 56;
+    static final long PAYLOAD_MASK = (1L << TYPE_SHIFT) - 1;
+
+    private final long[] tape;
+    private final String strings;
+
+    private ASTNode root;
+
+    TapeDocument(long[] tape,String strings) 
+    {
+        this.tape = tape;
+        this.strings = strings;
+    }
+
+    static long entry(int type,long payload) {
+        return ( (long) type << TYPE_SHIFT ) | payload;
+    }
+
+    /**
+     * Returns the AST node for the document's top-level value.
+     */
+    public ASTNode root() 
+    {
+        if ( root == null ) {
+            root = node( 0 );
+        }
+        return root;
+    }
+
+    /**
+     * Returns the number of <code>long</code> words used by the tape.
+     */
+    public int tapeLength() {
+        return tape.length;
+    }
+
+    private int type(int index) {
+        return (int) ( tape[index] >>> TYPE_SHIFT );
+    }
+
+    private int payload(int index) {
+        return (int) ( tape[index] & PAYLOAD_MASK );
+    }
+
+    private String string(int index) 
+    {
+        final int start = payload( index );
+        return strings.substring( start , start + (int) tape[index+1] );
+    }
+
+    /**
+     * Returns the tape index of the entry following the given one.
+     */
+    private int skip(int index) 
+    {
+        switch( type( index ) ) 
+        {
+            case OBJECT:
+            case ARRAY:
+                return payload( index );
+            case KEY:
+            case STRING:
+            case PLACEHOLDER:
+            case LONG:
+            case DOUBLE:
+            case BIG_INTEGER:
+                return index + 2;
+            case LONG_TEXT:
+            case DOUBLE_TEXT:
+                return index + 3;
+            case TRUE:
+            case FALSE:
+            case NULL:
+                return index + 1;
+            default:
+                throw new RuntimeException("Internal error, unhandled tape entry type "+type( index )+" at index "+index);
+        }
+    }
+
+    private ASTNode node(int index) 
+    {
+        switch( type( index ) ) 
+        {
+            case OBJECT:
+                return new JSONObject( new Children( index , true ) );
+            case ARRAY:
+                return new JSONArray( new Children( index , false ) );
+            case STRING:
+                return new StringLiteral( string( index ) );
+            case PLACEHOLDER:
+                return new PlaceholderExpression( new Identifier( string( index ) ) );
+            case LONG:
+                return new NumberLiteral( tape[index+1] );
+            case DOUBLE:
+                return new NumberLiteral( Double.longBitsToDouble( tape[index+1] ) );
+            case LONG_TEXT:
+                return new NumberLiteral( tape[index+1] , numberText( index ) );
+            case DOUBLE_TEXT:
+                return new NumberLiteral( Double.longBitsToDouble( tape[index+1] ) , numberText( index ) );
+            case BIG_INTEGER:
+                final String text = string( index );
+                return new NumberLiteral( new BigInteger( text ) , text );
+            case TRUE:
+                return new BooleanLiteral( true );
+            case FALSE:
+                return new BooleanLiteral( false );
+            case NULL:
+                return new NullLiteral();
+            default:
+                throw new RuntimeException("Internal error, unhandled tape entry type "+type( index )+" at index "+index);
+        }
+    }
+
+    private String numberText(int index) 
+    {
+        final int start = payload( index );
+        return strings.substring( start , start + (int) tape[index+2] );
+    }
+
+    /**
+     * Lazily created children of an object or array.
+     */
+    private final class Children extends AbstractList<ASTNode> implements RandomAccess 
+    {
+        private final int container;
+        private final boolean isObject;
+        private final int size;
+
+        // tape indices of the children, populated on first access
+        private int[] indices;
+        private ASTNode[] nodes;
+
+        public Children(int container,boolean isObject) 
+        {
+            this.container = container;
+            this.isObject = isObject;
+            this.size = (int) tape[container+1];
+        }
+
+        @Override
+        public ASTNode get(int index) 
+        {
+            if ( index < 0 || index >= size ) {
+                throw new IndexOutOfBoundsException( "Index "+index+" out of range [0,"+size+")" );
+            }
+            if ( nodes == null ) 
+            {
+                indices = new int[ size ];
+                nodes = new ASTNode[ size ];
+                int ptr = container + 2;
+                for ( int i = 0 ; i < size ; i++ ) 
+                {
+                    indices[i] = ptr;
+                    ptr = skip( isObject ? ptr + 2 : ptr );
+                }
+            }
+            ASTNode result = nodes[index];
+            if ( result == null ) 
+            {
+                final int ptr = indices[index];
+                if ( isObject ) {
+                    result = new KeyValue( new StringLiteral( string( ptr ) ) , node( ptr + 2 ) );
+                } else {
+                    result = node( ptr );
+                }
+                nodes[index] = result;
+            }
+            return result;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
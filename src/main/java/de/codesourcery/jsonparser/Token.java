@@ -62,6 +62,7 @@ public class Token
         COMMA, // ok
         COLON, // ok
         DIGITS, // ok
+        NUMBER,
         TEXT, // ok
         BACKSLASH, // ok
         MINUS,// ok
@@ -23,8 +23,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import de.codesourcery.jsonparser.util.ASTVisitor;
+
 public interface ASTNode
 {
+    /**
+     * Returns the type of this node.
+     */
+    public NodeKind kind();
+
+    /**
+     * Passes this node to the {@link ASTVisitor} method matching its type.
+     */
+    public void accept(ASTVisitor visitor);
+
     public default List<ASTNode> children() 
     {
         return Collections.emptyList();
@@ -54,57 +66,143 @@ public interface ASTNode
         return toJavaObject( this );
     }
 
-    public static Object toJavaObject(ASTNode node)
+    /**
+     * Returns a lazy view of this node as a Java object.
+     * 
+     * Unlike {@link #toJavaObject()} nothing is copied up front: objects become read-only {@link Map}s and 
+     * arrays read-only {@link List}s that convert their values on access. Arrays holding only numbers 
+     * are returned as <code>int[]</code>, <code>long[]</code> or <code>double[]</code>, strings as {@link String}s, 
+     * numbers as returned by {@link NumberLiteral#toNumber()}, booleans as {@link Boolean}s and placeholders 
+     * as their {@link de.codesourcery.jsonparser.Identifier}, like {@link #toJavaObject()} does.
+     * 
+     * @throws IllegalArgumentException if this node is a {@link KeyValue}
+     */
+    public default Object asJavaObject() {
+        return asJavaObject( this );
+    }
+
+    public static Object asJavaObject(ASTNode node)
     {
-        if ( node instanceof StringLiteral ) {
-            return ((StringLiteral) node).value;
+        switch( node.kind() ) 
+        {
+            case STRING:
+                return ((StringLiteral) node).getValue();
+            case NULL:
+                return null;
+            case NUMBER:
+                return ((NumberLiteral) node).toNumber();
+            case BOOLEAN:
+                return Boolean.valueOf( ((BooleanLiteral) node).value );
+            case OBJECT:
+                return new JSONObjectView( (JSONObject) node );
+            case ARRAY:
+                final Object numbers = toPrimitiveArray( (JSONArray) node );
+                return numbers != null ? numbers : new JSONArrayView( (JSONArray) node );
+            case PLACEHOLDER:
+                return ((PlaceholderExpression) node).name;
+            case KEY_VALUE:
+                throw new IllegalArgumentException("Object members have no Java representation, convert the object or the member's value: "+node);
+            default:
+                throw new RuntimeException("Unhandled node type: "+node);
         }
-        if ( node instanceof NullLiteral ) {
+    }
+
+    /**
+     * Returns the elements of a non-empty array that holds only numbers as primitive array.
+     * 
+     * @return <code>int[]</code>, <code>long[]</code>, <code>double[]</code> or <code>null</code> 
+     * if the array is empty or holds other values or integers that do not fit into a <code>long</code>
+     */
+    private static Object toPrimitiveArray(JSONArray array)
+    {
+        final int len = array.childCount();
+        if ( len == 0 ) {
             return null;
         }
-        if ( node instanceof NumberLiteral ) {
-            final NumberLiteral num = (NumberLiteral) node;
-            if ( num.value.contains( "." ) )
-            {
-                return Double.parseDouble( num.value );
+        boolean allInts = true;
+        boolean allLongs = true;
+        for ( int i = 0 ; i < len ; i++ ) 
+        {
+            final ASTNode child = array.child( i );
+            if ( child.kind() != NodeKind.NUMBER ) {
+                return null;
             }
-            return Integer.parseInt( num.value );
-        }
-        if ( node instanceof BooleanLiteral ) {
-            return ((BooleanLiteral) node).value;
-        }
-        if ( node instanceof JSONArray ) {
-            final JSONArray array = (JSONArray) node;
-            final Object[] tmp = new Object[ array.childCount() ];
-            Set<Class<?>> componentClass = new HashSet<>();
-            final List<ASTNode> children1 = array.children();
-            for (int i = 0; i < children1.size(); i++)
-            {
-                final ASTNode child = children1.get( i );
-                final Object obj = child.toJavaObject();
-                componentClass.add( obj.getClass() );
-                tmp[i] = obj;
+            final NumberLiteral number = (NumberLiteral) child;
+            if ( number.isIntegral() && ! number.isLong() ) {
+                return null;
             }
-            if ( componentClass.size() == 1 ) {
-                final Object result = Array.newInstance( componentClass.iterator().next(), tmp.length );
-                for ( int i = 0, len = tmp.length ; i < len ; i++ )
-                {
-                    Array.set( result, i, tmp[i] );
-                }
-                return result;
+            allLongs &= number.isLong();
+            allInts &= number.isInt();
+        }
+        if ( allInts ) 
+        {
+            final int[] result = new int[ len ];
+            for ( int i = 0 ; i < len ; i++ ) {
+                result[i] = ((NumberLiteral) array.child( i )).intValue();
             }
-            return tmp;
+            return result;
         }
-        if ( node instanceof JSONObject )
+        if ( allLongs ) 
         {
-            final Map<String, Object> tmp = new HashMap<>();
-            for (ASTNode child : node.children())
-            {
-                final KeyValue kv = (KeyValue) child;
-                tmp.put( kv.key().value, kv.value().toJavaObject() );
+            final long[] result = new long[ len ];
+            for ( int i = 0 ; i < len ; i++ ) {
+                result[i] = ((NumberLiteral) array.child( i )).longValue();
             }
-            return tmp;
+            return result;
+        }
+        final double[] result = new double[ len ];
+        for ( int i = 0 ; i < len ; i++ ) {
+            result[i] = ((NumberLiteral) array.child( i )).doubleValue();
+        }
+        return result;
+    }
+
+    public static Object toJavaObject(ASTNode node)
+    {
+        switch( node.kind() ) 
+        {
+            case STRING:
+                return ((StringLiteral) node).getValue();
+            case NULL:
+                return null;
+            case NUMBER:
+                return ((NumberLiteral) node).toNumber();
+            case BOOLEAN:
+                return ((BooleanLiteral) node).value;
+            case ARRAY:
+                final Object[] tmp = new Object[ node.childCount() ];
+                Set<Class<?>> componentClass = new HashSet<>();
+                final List<ASTNode> children1 = node.children();
+                for (int i = 0; i < children1.size(); i++)
+                {
+                    final ASTNode child = children1.get( i );
+                    final Object obj = child.toJavaObject();
+                    componentClass.add( obj.getClass() );
+                    tmp[i] = obj;
+                }
+                if ( componentClass.size() == 1 ) {
+                    final Object result = Array.newInstance( componentClass.iterator().next(), tmp.length );
+                    for ( int i = 0, len = tmp.length ; i < len ; i++ )
+                    {
+                        Array.set( result, i, tmp[i] );
+                    }
+                    return result;
+                }
+                return tmp;
+            case OBJECT:
+                final Map<String, Object> map = new HashMap<>();
+                for (ASTNode child : node.children())
+                {
+                    final KeyValue kv = (KeyValue) child;
+                    map.put( kv.key().getValue(), kv.value().toJavaObject() );
+                }
+                return map;
+            case PLACEHOLDER:
+                return ((PlaceholderExpression) node).name;
+            case KEY_VALUE:
+                throw new IllegalArgumentException("Object members have no Java representation, convert the object or the member's value: "+node);
+            default:
+                throw new RuntimeException("Unhandled node type: "+node);
         }
-        throw new RuntimeException("Unhandled node type: "+node);
     }
-}
\ No newline at end of file
+}
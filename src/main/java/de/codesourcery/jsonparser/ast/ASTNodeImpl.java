@@ -22,7 +22,18 @@ import java.util.Map;
 
 public abstract class ASTNodeImpl implements ASTNode
 {
-    public final List<ASTNode> children = new ArrayList<>();
+    public final List<ASTNode> children;
+
+    public ASTNodeImpl() {
+        this( new ArrayList<>() );
+    }
+
+    /**
+     * Creates a node that uses the given list to store its children.
+     */
+    protected ASTNodeImpl(List<ASTNode> children) {
+        this.children = children;
+    }
     
     public void add(ASTNode node) {
         children.add(node);
@@ -15,15 +15,27 @@
  */
 package de.codesourcery.jsonparser.ast;
 
+import de.codesourcery.jsonparser.util.ASTVisitor;
+
 public class BooleanLiteral implements ASTNode
 {
-    public boolean value;
+    public final boolean value;
 
     public BooleanLiteral(boolean value)
     {
         this.value = value;
     }
     
+    @Override
+    public NodeKind kind() {
+        return NodeKind.BOOLEAN;
+    }
+
+    @Override
+    public void accept(ASTVisitor visitor) {
+        visitor.visit( this );
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,249 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+import java.util.List;
+
+/**
+ * Immutable ASTs with persistent (path-copying) updates.
+ * 
+ * {@link #freeze(ASTNode)} turns an AST into an immutable one that can be shared freely across threads. 
+ * Update operations never modify their input but return a new root that shares all subtrees 
+ * not on the updated path with the original tree.
+ * 
+ * Paths are sequences of object member keys (<code>String</code>) and array indices (<code>Integer</code>), 
+ * for example <code>set( root , value , "nodes" , "42" , "sd" , 0 )</code>. 
+ * Paths that do not match the tree's structure fail with an {@link IllegalArgumentException}.
+ */
+public final class ImmutableAST
+{
+    private static final int SET = 0;
+    private static final int INSERT = 1;
+    private static final int REMOVE = 2;
+
+    private ImmutableAST() {
+    }
+
+    private static final class FrozenObject extends JSONObject 
+    {
+        public FrozenObject(ASTNode[] members) {
+            super( List.of( members ) );
+        }
+    }
+
+    private static final class FrozenArray extends JSONArray 
+    {
+        public FrozenArray(ASTNode[] elements) {
+            super( List.of( elements ) );
+        }
+    }
+
+    private static final class FrozenKeyValue extends KeyValue 
+    {
+        public FrozenKeyValue(StringLiteral key,ASTNode value) {
+            super( List.of( key , value ) );
+        }
+    }
+
+    /**
+     * Returns whether a node and all its descendants are immutable.
+     */
+    public static boolean isFrozen(ASTNode node) 
+    {
+        return node instanceof FrozenObject || node instanceof FrozenArray || node instanceof FrozenKeyValue ||
+               node instanceof StringLiteral || node instanceof NumberLiteral || node instanceof BooleanLiteral ||
+               node instanceof NullLiteral || node instanceof PlaceholderExpression;
+    }
+
+    /**
+     * Returns an immutable version of an AST, copying only those subtrees that are not immutable already.
+     */
+    public static ASTNode freeze(ASTNode node) 
+    {
+        if ( isFrozen( node ) ) {
+            return node;
+        }
+        if ( node instanceof JSONObject ) 
+        {
+            final ASTNode[] members = new ASTNode[ node.childCount() ];
+            for ( int i = 0 ; i < members.length ; i++ ) {
+                members[i] = freeze( node.child( i ) );
+            }
+            return new FrozenObject( members );
+        }
+        if ( node instanceof JSONArray ) 
+        {
+            final ASTNode[] elements = new ASTNode[ node.childCount() ];
+            for ( int i = 0 ; i < elements.length ; i++ ) {
+                elements[i] = freeze( node.child( i ) );
+            }
+            return new FrozenArray( elements );
+        }
+        if ( node instanceof KeyValue ) {
+            return new FrozenKeyValue( ((KeyValue) node).key() , freeze( ((KeyValue) node).value() ) );
+        }
+        throw new IllegalArgumentException("Unhandled node type: "+node);
+    }
+
+    /**
+     * Sets the value at a path.
+     * 
+     * If the path ends with a key that does not exist in its object, a new member is appended. 
+     * If it ends with an array index equal to the array's size, the value is appended.
+     * 
+     * @return new root, the root itself is frozen first if necessary
+     */
+    public static ASTNode set(ASTNode root,ASTNode value,Object... path) 
+    {
+        if ( path.length == 0 ) {
+            return freeze( value );
+        }
+        return update( freeze( root ) , path , 0 , freeze( value ) , SET );
+    }
+
+    /**
+     * Inserts a value into an array, the path must end with the index to insert at.
+     * 
+     * @return new root, the root itself is frozen first if necessary
+     */
+    public static ASTNode insert(ASTNode root,ASTNode value,Object... path) 
+    {
+        if ( path.length == 0 ) {
+            throw new IllegalArgumentException("Path must not be empty");
+        }
+        return update( freeze( root ) , path , 0 , freeze( value ) , INSERT );
+    }
+
+    /**
+     * Removes an object member or array element.
+     * 
+     * @return new root, the root itself is frozen first if necessary
+     */
+    public static ASTNode remove(ASTNode root,Object... path) 
+    {
+        if ( path.length == 0 ) {
+            throw new IllegalArgumentException("Path must not be empty");
+        }
+        return update( freeze( root ) , path , 0 , null , REMOVE );
+    }
+
+    private static ASTNode update(ASTNode node,Object[] path,int depth,ASTNode value,int operation) 
+    {
+        final Object key = path[depth];
+        if ( node instanceof JSONObject ) 
+        {
+            if ( !( key instanceof String ) ) {
+                throw new IllegalArgumentException("Expected a member key but got "+key+" at "+toString( path , depth ) );
+            }
+            final JSONObject object = (JSONObject) node;
+            final int index = object.indexOfKey( (String) key );
+            if ( depth < path.length - 1 ) 
+            {
+                if ( index == -1 ) {
+                    throw new IllegalArgumentException("No member '"+key+"' at "+toString( path , depth ) );
+                }
+                final KeyValue member = (KeyValue) object.child( index );
+                final ASTNode newValue = update( member.value() , path , depth + 1 , value , operation );
+                return new FrozenObject( replace( object , index , new FrozenKeyValue( member.key() , newValue ) ) );
+            }
+            switch( operation ) 
+            {
+                case SET:
+                    if ( index == -1 ) {
+                        return new FrozenObject( insert( object , object.childCount() , new FrozenKeyValue( new StringLiteral( (String) key ) , value ) ) );
+                    }
+                    return new FrozenObject( replace( object , index , new FrozenKeyValue( ((KeyValue) object.child( index )).key() , value ) ) );
+                case REMOVE:
+                    if ( index == -1 ) {
+                        throw new IllegalArgumentException("No member '"+key+"' at "+toString( path , depth ) );
+                    }
+                    return new FrozenObject( remove( object , index ) );
+                default:
+                    throw new IllegalArgumentException("Can only insert into arrays, got an object at "+toString( path , depth ) );
+            }
+        }
+        if ( node instanceof JSONArray ) 
+        {
+            if ( !( key instanceof Integer ) ) {
+                throw new IllegalArgumentException("Expected an array index but got "+key+" at "+toString( path , depth ) );
+            }
+            final int index = (Integer) key;
+            final int size = node.childCount();
+            final int maxIndex = depth == path.length - 1 && operation != REMOVE ? size : size - 1;
+            if ( index < 0 || index > maxIndex ) {
+                throw new IllegalArgumentException("Index "+index+" out of range at "+toString( path , depth ) );
+            }
+            if ( depth < path.length - 1 ) {
+                return new FrozenArray( replace( node , index , update( node.child( index ) , path , depth + 1 , value , operation ) ) );
+            }
+            switch( operation ) 
+            {
+                case SET:
+                    return new FrozenArray( index == size ? insert( node , index , value ) : replace( node , index , value ) );
+                case INSERT:
+                    return new FrozenArray( insert( node , index , value ) );
+                case REMOVE:
+                    return new FrozenArray( remove( node , index ) );
+                default:
+                    throw new RuntimeException("Internal error, unhandled operation "+operation);
+            }
+        }
+        throw new IllegalArgumentException("Expected an object or array at "+toString( path , depth )+" but got "+node );
+    }
+
+    private static ASTNode[] replace(ASTNode node,int index,ASTNode child) 
+    {
+        final ASTNode[] result = node.children().toArray( new ASTNode[ node.childCount() ] );
+        result[index] = child;
+        return result;
+    }
+
+    private static ASTNode[] insert(ASTNode node,int index,ASTNode child) 
+    {
+        final List<ASTNode> children = node.children();
+        final ASTNode[] result = new ASTNode[ children.size() + 1 ];
+        for ( int i = 0 ; i < index ; i++ ) {
+            result[i] = children.get( i );
+        }
+        result[index] = child;
+        for ( int i = index , len = children.size() ; i < len ; i++ ) {
+            result[i+1] = children.get( i );
+        }
+        return result;
+    }
+
+    private static ASTNode[] remove(ASTNode node,int index) 
+    {
+        final List<ASTNode> children = node.children();
+        final ASTNode[] result = new ASTNode[ children.size() - 1 ];
+        for ( int i = 0 , j = 0 , len = children.size() ; i < len ; i++ ) 
+        {
+            if ( i != index ) {
+                result[j++] = children.get( i );
+            }
+        }
+        return result;
+    }
+
+    private static String toString(Object[] path,int depth) 
+    {
+        final StringBuilder buffer = new StringBuilder();
+        for ( int i = 0 ; i < depth ; i++ ) {
+            buffer.append( '/' ).append( path[i] );
+        }
+        return buffer.length() == 0 ? "/" : buffer.toString();
+    }
+}
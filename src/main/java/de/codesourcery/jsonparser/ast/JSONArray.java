@@ -15,8 +15,32 @@
  */
 package de.codesourcery.jsonparser.ast;
 
+import java.util.List;
+
+import de.codesourcery.jsonparser.util.ASTVisitor;
+
 public class JSONArray extends ASTNodeImpl
 {
+    public JSONArray() {
+    }
+
+    /**
+     * Creates an array backed by the given list of elements.
+     */
+    public JSONArray(List<ASTNode> children) {
+        super( children );
+    }
+
+    @Override
+    public NodeKind kind() {
+        return NodeKind.ARRAY;
+    }
+
+    @Override
+    public void accept(ASTVisitor visitor) {
+        visitor.visit( this );
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Lazy {@link java.util.List} view of a {@link JSONArray}.
+ * 
+ * @see ASTNode#asJavaObject()
+ */
+final class JSONArrayView extends AbstractList<Object> implements RandomAccess
+{
+    private final JSONArray array;
+
+    public JSONArrayView(JSONArray array) {
+        this.array = array;
+    }
+
+    @Override
+    public Object get(int index) {
+        return array.child( index ).asJavaObject();
+    }
+
+    @Override
+    public int size() {
+        return array.childCount();
+    }
+}
@@ -15,11 +15,194 @@
  */
 package de.codesourcery.jsonparser.ast;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import de.codesourcery.jsonparser.util.ASTVisitor;
+
 public class JSONObject extends ASTNodeImpl
 {
+    // objects with up to this many members are searched linearly
+    private static final int INDEX_THRESHOLD = 8;
+
+    private volatile KeyIndex index;
+
+    public JSONObject() {
+    }
+
+    /**
+     * Creates an object backed by the given list of {@link KeyValue} members.
+     */
+    public JSONObject(List<ASTNode> children) {
+        super( children );
+    }
+
+    @Override
+    public void add(ASTNode node)
+    {
+        final int member = children.size();
+        super.add( node );
+        updateIndex( member );
+    }
+
+    @Override
+    public void add(Collection<ASTNode> nodes)
+    {
+        final int first = children.size();
+        super.add( nodes );
+        updateIndex( first );
+    }
+
+    private void updateIndex(int firstAdded) 
+    {
+        final KeyIndex idx = index;
+        if ( idx != null ) {
+            // never modify a published index, readers may be probing it
+            index = idx.with( firstAdded , children );
+        }
+    }
+
+    /**
+     * Returns the value of the member with the given key.
+     * 
+     * If the key occurs more than once, the value of the last member is returned.
+     * 
+     * @return value or <code>null</code> if there is no such member
+     */
+    public ASTNode get(String key) 
+    {
+        final int member = indexOfKey( key );
+        return member < 0 ? null : ((KeyValue) children.get( member )).value();
+    }
+
+    public boolean containsKey(String key) {
+        return indexOfKey( key ) >= 0;
+    }
+
+    /**
+     * Returns the index of the member with the given key, the last one if the key occurs more than once.
+     * 
+     * Larger objects use a hash index that is kept up to date by {@link #add(ASTNode)}. Members replaced or 
+     * removed by modifying {@link #children} directly are not detected, lookups may then miss keys
+     * until the number of members changes.
+     * 
+     * @return index or -1 if there is no such member
+     */
+    public int indexOfKey(String key) 
+    {
+        final int size = children.size();
+        if ( size <= INDEX_THRESHOLD ) 
+        {
+            for ( int i = size - 1 ; i >= 0 ; i-- ) 
+            {
+                if ( ((KeyValue) children.get( i )).key().rawEquals( key ) ) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        KeyIndex idx = index;
+        if ( idx == null || idx.size != size ) 
+        {
+            // first lookup or members were added to the child list directly, publish a completely built index
+            idx = KeyIndex.create( children );
+            index = idx;
+        }
+        return idx.find( key , children );
+    }
+
+    /**
+     * Open-addressing hash index from member keys to member indices.
+     */
+    private static final class KeyIndex 
+    {
+        // member index + 1, 0 marks a free slot
+        private final int[] slots;
+        private final int mask;
+        private int size;
+
+        private KeyIndex(int[] slots,int size) 
+        {
+            this.slots = slots;
+            this.mask = slots.length - 1;
+            this.size = size;
+        }
+
+        public static KeyIndex create(List<ASTNode> members) 
+        {
+            final int size = members.size();
+            // keep load factor below 0.5
+            final KeyIndex result = new KeyIndex( new int[ Integer.highestOneBit( Math.max( size , 8 ) ) << 2 ] , 0 );
+            for ( int i = 0 ; i < size ; i++ ) {
+                result.put( ((KeyValue) members.get( i )).key().getValue() , i , members );
+            }
+            return result;
+        }
+
+        /**
+         * Returns a new index that also contains the members starting at the given index, 
+         * this index is left unchanged.
+         */
+        public KeyIndex with(int first,List<ASTNode> members) 
+        {
+            final int newSize = members.size();
+            if ( size != first || newSize * 2 > slots.length ) {
+                return create( members ); // out of sync or needs to grow
+            }
+            final KeyIndex result = new KeyIndex( slots.clone() , size );
+            for ( int i = first ; i < newSize ; i++ ) {
+                result.put( ((KeyValue) members.get( i )).key().getValue() , i , members );
+            }
+            return result;
+        }
+
+        private static int hash(String key) 
+        {
+            final int h = key.hashCode();
+            return h ^ ( h >>> 16 );
+        }
+
+        private void put(String key,int member,List<ASTNode> members) 
+        {
+            int i = hash( key ) & mask;
+            while ( slots[i] != 0 ) 
+            {
+                if ( ((KeyValue) members.get( slots[i] - 1 )).key().rawEquals( key ) ) {
+                    break; // duplicate key, the later member wins
+                }
+                i = ( i + 1 ) & mask;
+            }
+            slots[i] = member + 1;
+            size++;
+        }
+
+        public int find(String key,List<ASTNode> members) 
+        {
+            int i = hash( key ) & mask;
+            int slot;
+            while ( ( slot = slots[i] ) != 0 ) 
+            {
+                if ( ((KeyValue) members.get( slot - 1 )).key().rawEquals( key ) ) {
+                    return slot - 1;
+                }
+                i = ( i + 1 ) & mask;
+            }
+            return -1;
+        }
+    }
+
+    @Override
+    public NodeKind kind() {
+        return NodeKind.OBJECT;
+    }
+
+    @Override
+    public void accept(ASTVisitor visitor) {
+        visitor.visit( this );
+    }
+
     @Override
     public String toString()
     {
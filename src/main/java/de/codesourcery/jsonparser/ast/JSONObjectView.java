@@ -0,0 +1,121 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Lazy {@link Map} view of a {@link JSONObject}.
+ * 
+ * Lookups use the object's key index, values are converted on access. If a key occurs more than once
+ * only its last occurrence is part of the map, consistent with {@link #get(Object)}.
+ * 
+ * @see ASTNode#asJavaObject()
+ */
+final class JSONObjectView extends AbstractMap<String,Object>
+{
+    private final JSONObject object;
+
+    private Set<Map.Entry<String,Object>> entrySet;
+
+    public JSONObjectView(JSONObject object) {
+        this.object = object;
+    }
+
+    @Override
+    public Object get(Object key) 
+    {
+        if ( key instanceof String ) 
+        {
+            final ASTNode value = object.get( (String) key );
+            return value == null ? null : value.asJavaObject();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && object.containsKey( (String) key );
+    }
+
+    @Override
+    public int size() 
+    {
+        int size = 0;
+        for ( int i = 0 , len = object.childCount() ; i < len ; i++ ) 
+        {
+            if ( isLastOccurrence( i ) ) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    // whether a member is not shadowed by a later one with the same key
+    private boolean isLastOccurrence(int member) {
+        return object.indexOfKey( ((KeyValue) object.child( member )).key().getValue() ) == member;
+    }
+
+    @Override
+    public Set<Map.Entry<String,Object>> entrySet() 
+    {
+        if ( entrySet == null ) 
+        {
+            entrySet = new AbstractSet<Map.Entry<String,Object>>() 
+            {
+                @Override
+                public Iterator<Map.Entry<String,Object>> iterator() 
+                {
+                    return new Iterator<Map.Entry<String,Object>>() 
+                    {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() 
+                        {
+                            final int len = object.childCount();
+                            while ( index < len && ! isLastOccurrence( index ) ) {
+                                index++;
+                            }
+                            return index < len;
+                        }
+
+                        @Override
+                        public Map.Entry<String,Object> next() 
+                        {
+                            if ( ! hasNext() ) {
+                                throw new NoSuchElementException();
+                            }
+                            final KeyValue member = (KeyValue) object.child( index++ );
+                            return new SimpleImmutableEntry<>( member.key().getValue() , member.value().asJavaObject() );
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return JSONObjectView.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+}
@@ -15,16 +15,26 @@
  */
 package de.codesourcery.jsonparser.ast;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import de.codesourcery.jsonparser.util.ASTVisitor;
+
 public class KeyValue extends ASTNodeImpl
 {
     public KeyValue(StringLiteral key,ASTNode value)
     {
-        super.add( key );
-        super.add( value );
+        super( Arrays.asList( key , value ) );
+    }
+
+    /**
+     * Creates a member that stores key and value in the given two-element list.
+     */
+    protected KeyValue(List<ASTNode> children)
+    {
+        super( children );
     }
 
     public void add(ASTNode node)
@@ -40,6 +50,16 @@ public class KeyValue extends ASTNodeImpl
         return children.get(1);
     }
 
+    @Override
+    public NodeKind kind() {
+        return NodeKind.KEY_VALUE;
+    }
+
+    @Override
+    public void accept(ASTVisitor visitor) {
+        visitor.visit( this );
+    }
+
     @Override
     public String toString()
     {
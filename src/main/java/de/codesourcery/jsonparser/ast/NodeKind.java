@@ -0,0 +1,31 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+/**
+ * Type tag of an {@link ASTNode}, for dispatching with a <code>switch</code> instead of <code>instanceof</code> chains.
+ */
+public enum NodeKind
+{
+    OBJECT,
+    ARRAY,
+    KEY_VALUE,
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    NULL,
+    PLACEHOLDER
+}
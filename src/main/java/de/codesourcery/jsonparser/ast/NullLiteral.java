@@ -15,8 +15,20 @@
  */
 package de.codesourcery.jsonparser.ast;
 
+import de.codesourcery.jsonparser.util.ASTVisitor;
+
 public class NullLiteral implements ASTNode
 {
+    @Override
+    public NodeKind kind() {
+        return NodeKind.NULL;
+    }
+
+    @Override
+    public void accept(ASTVisitor visitor) {
+        visitor.visit( this );
+    }
+
     @Override
     public String toString()
     {
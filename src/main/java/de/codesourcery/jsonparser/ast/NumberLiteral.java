@@ -15,17 +15,216 @@
  */
 package de.codesourcery.jsonparser.ast;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import de.codesourcery.jsonparser.util.ASTVisitor;
+
 public class NumberLiteral implements ASTNode
 {
-    public String value;
-    
-    public NumberLiteral(String value) {
-        this.value = value;
+    private static final BigDecimal MIN_LONG = BigDecimal.valueOf( Long.MIN_VALUE );
+    private static final BigDecimal MAX_LONG = BigDecimal.valueOf( Long.MAX_VALUE );
+
+    private final boolean integral;
+    private final long longValue;
+    private final double doubleValue;
+    // only set for integral numbers that don't fit into a long
+    private final BigDecimal bigValue;
+    // source text, only set if it differs from the default rendering of the value 
+    private final String text;
+
+    public NumberLiteral(long value) {
+        this( value , null );
+    }
+
+    public NumberLiteral(long value,String text) 
+    {
+        this.integral = true;
+        this.longValue = value;
+        this.doubleValue = value;
+        this.bigValue = null;
+        this.text = text;
+    }
+
+    public NumberLiteral(double value) {
+        this( value , null );
+    }
+
+    /**
+     * @param text the number as written in the input, parsed literals that exceed the range of a <code>double</code> have an infinite value
+     * @throws IllegalArgumentException if there is no text and the value is NaN or infinite, JSON has no representation for them
+     */
+    public NumberLiteral(double value,String text) 
+    {
+        if ( text == null && ( Double.isNaN( value ) || Double.isInfinite( value ) ) ) {
+            throw new IllegalArgumentException("Not a valid JSON number: "+value);
+        }
+        this.integral = false;
+        this.longValue = (long) value;
+        this.doubleValue = value;
+        this.bigValue = null;
+        this.text = text;
+    }
+
+    /**
+     * Creates a literal for an integer that is too large to fit into a <code>long</code>.
+     */
+    public NumberLiteral(BigInteger value,String text) 
+    {
+        this.integral = true;
+        this.bigValue = new BigDecimal( value );
+        this.longValue = value.longValue();
+        this.doubleValue = value.doubleValue();
+        this.text = text;
+    }
+
+    public NumberLiteral(String value) 
+    {
+        final BigDecimal number;
+        try {
+            number = new BigDecimal( value );
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Not a valid number: '"+value+"'");
+        }
+        this.integral = value.indexOf( '.' ) == -1 && value.indexOf( 'e' ) == -1 && value.indexOf( 'E' ) == -1;
+        if ( integral && number.compareTo( MIN_LONG ) >= 0 && number.compareTo( MAX_LONG ) <= 0 ) 
+        {
+            this.longValue = number.longValueExact();
+            this.doubleValue = longValue;
+            this.bigValue = null;
+            this.text = Long.toString( longValue ).equals( value ) ? null : value;
+        } 
+        else if ( integral ) 
+        {
+            this.bigValue = number;
+            this.longValue = number.longValue();
+            this.doubleValue = number.doubleValue();
+            this.text = value;
+        } 
+        else 
+        {
+            this.doubleValue = Double.parseDouble( value );
+            this.longValue = (long) doubleValue;
+            this.bigValue = null;
+            this.text = Double.toString( doubleValue ).equals( value ) ? null : value;
+        }
+    }
+
+    /**
+     * Returns whether this number was written without fraction or exponent.
+     */
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    /**
+     * Returns whether this number is integral and fits into a <code>long</code>.
+     */
+    public boolean isLong() {
+        return integral && bigValue == null;
+    }
+
+    /**
+     * Returns whether this number is integral and fits into an <code>int</code>.
+     */
+    public boolean isInt() {
+        return isLong() && longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE;
     }
-    
+
+    /**
+     * Returns this number as an <code>int</code>.
+     * 
+     * @throws ArithmeticException if this number is not integral or does not fit into an <code>int</code>
+     */
+    public int intValue() 
+    {
+        if ( ! isInt() ) {
+            throw new ArithmeticException("Not an int value: "+this);
+        }
+        return (int) longValue;
+    }
+
+    /**
+     * Returns this number as a <code>long</code>.
+     * 
+     * @throws ArithmeticException if this number is not integral or does not fit into a <code>long</code>
+     */
+    public long longValue() 
+    {
+        if ( ! isLong() ) {
+            throw new ArithmeticException("Not a long value: "+this);
+        }
+        return longValue;
+    }
+
+    public double doubleValue() {
+        return doubleValue;
+    }
+
+    public BigDecimal bigDecimalValue() 
+    {
+        if ( bigValue != null ) {
+            return bigValue;
+        }
+        if ( text != null ) {
+            return new BigDecimal( text );
+        }
+        return integral ? BigDecimal.valueOf( longValue ) : new BigDecimal( Double.toString( doubleValue ) );
+    }
+
+    /**
+     * Returns this number as an {@link Integer}, {@link Long}, {@link BigInteger} or {@link Double}, 
+     * whichever is the smallest type that can represent it.
+     */
+    public Number toNumber() 
+    {
+        if ( isInt() ) {
+            return Integer.valueOf( (int) longValue );
+        }
+        if ( isLong() ) {
+            return Long.valueOf( longValue );
+        }
+        if ( integral ) {
+            return bigValue.toBigInteger();
+        }
+        return Double.valueOf( doubleValue );
+    }
+
+    /**
+     * Appends this number's textual representation to a buffer.
+     */
+    public void appendTo(StringBuilder buffer) 
+    {
+        if ( text != null ) {
+            buffer.append( text );
+        } else if ( bigValue != null ) {
+            buffer.append( bigValue.toString() );
+        } else if ( integral ) {
+            buffer.append( longValue );
+        } else {
+            buffer.append( doubleValue );
+        }
+    }
+
+    @Override
+    public NodeKind kind() {
+        return NodeKind.NUMBER;
+    }
+
+    @Override
+    public void accept(ASTVisitor visitor) {
+        visitor.visit( this );
+    }
+
     @Override
     public String toString()
     {
-        return value;
+        if ( text != null ) {
+            return text;
+        }
+        if ( bigValue != null ) {
+            return bigValue.toString();
+        }
+        return integral ? Long.toString( longValue ) : Double.toString( doubleValue );
     }    
 }
@@ -16,6 +16,7 @@
 package de.codesourcery.jsonparser.ast;
 
 import de.codesourcery.jsonparser.Identifier;
+import de.codesourcery.jsonparser.util.ASTVisitor;
 
 public class PlaceholderExpression extends ASTNodeImpl
 {
@@ -25,6 +26,16 @@ public class PlaceholderExpression extends ASTNodeImpl
         this.name = name;
     }
     
+    @Override
+    public NodeKind kind() {
+        return NodeKind.PLACEHOLDER;
+    }
+
+    @Override
+    public void accept(ASTVisitor visitor) {
+        visitor.visit( this );
+    }
+
     @Override
     public String toString()
     {
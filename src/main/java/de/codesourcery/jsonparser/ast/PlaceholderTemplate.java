@@ -0,0 +1,143 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import de.codesourcery.jsonparser.Identifier;
+import de.codesourcery.jsonparser.util.MyParseException;
+
+/**
+ * String literal value split into literal segments and placeholder slots.
+ * 
+ * Templates are immutable and thread-safe, each {@link StringLiteral} compiles its template once and keeps it.
+ */
+final class PlaceholderTemplate
+{
+    /**
+     * Returned for values without placeholders, callers use the value itself instead of rendering it.
+     */
+    public static final PlaceholderTemplate NONE = new PlaceholderTemplate( new String[] { "" } , new Identifier[0] );
+
+    // always holds one more element than 'names'
+    private final String[] segments;
+    private final Identifier[] names;
+    private final int literalLength;
+
+    private PlaceholderTemplate(String[] segments,Identifier[] names) 
+    {
+        this.segments = segments;
+        this.names = names;
+        int length = 0;
+        for ( String segment : segments ) {
+            length += segment.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compiles a string literal's value.
+     * 
+     * @return template or {@link #NONE} if the value contains no placeholders
+     * @throws MyParseException if the value contains a malformed placeholder expression
+     */
+    public static PlaceholderTemplate compile(String value) 
+    {
+        if ( value.indexOf( '$' ) == -1 ) {
+            return NONE;
+        }
+        final List<String> segments = new ArrayList<>();
+        final List<Identifier> names = new ArrayList<>();
+        int segmentStart = 0;
+        for (int i = 0 , len = value.length() ; i < len ; i++) 
+        {
+            final char c = value.charAt(i);
+            if ( c == '\\' ) {
+                i++; // skip escaped character
+                continue;
+            }
+            if ( c != '$' ) {
+                continue;
+            }
+            if ( i + 1 == len ) {
+                throw new MyParseException("Unterminated placeholder expression",len);
+            }
+            if ( value.charAt( i + 1 ) != '{' ) {
+                throw new MyParseException("Expected '{'",i+1);
+            }
+            int end = i + 2;
+            for ( ; end < len && value.charAt( end ) != '}' ; end++ ) 
+            {
+                final char n = value.charAt( end );
+                if ( ! Identifier.isValidIdentifierChar( n ) ) {
+                    throw new MyParseException("Character '"+n+"' not allowed in identifier",end);
+                }
+            }
+            if ( end == len ) {
+                throw new MyParseException("Unterminated placeholder expression",len);
+            }
+            if ( end == i + 2 ) {
+                throw new MyParseException("Placeholder name required",end);
+            }
+            segments.add( value.substring( segmentStart , i ) );
+            names.add( new Identifier( value.substring( i + 2 , end ) ) );
+            segmentStart = end + 1;
+            i = end;
+        }
+        segments.add( value.substring( segmentStart ) );
+        return new PlaceholderTemplate( segments.toArray( new String[0] ) , names.toArray( new Identifier[0] ) );
+    }
+
+    /**
+     * Returns the names of all placeholders, in order of appearance.
+     */
+    public List<Identifier> getNames() {
+        return Arrays.asList( names );
+    }
+
+    /**
+     * Returns the value with placeholders replaced, placeholders the resolver returns <code>null</code> for are kept.
+     */
+    public String render(Function<Identifier,String> resolver) 
+    {
+        final StringBuilder buffer = new StringBuilder( literalLength + names.length * 16 );
+        appendTo( buffer , resolver );
+        return buffer.toString();
+    }
+
+    /**
+     * Appends the value with placeholders replaced to a buffer.
+     * 
+     * @see #render(Function)
+     */
+    public void appendTo(StringBuilder buffer,Function<Identifier,String> resolver) 
+    {
+        buffer.append( segments[0] );
+        for ( int i = 0 ; i < names.length ; i++ ) 
+        {
+            final String resolved = resolver.apply( names[i] );
+            if ( resolved == null ) {
+                buffer.append( "${" ).append( names[i].name ).append( '}' );
+            } else {
+                buffer.append( resolved );
+            }
+            buffer.append( segments[i+1] );
+        }
+    }
+}
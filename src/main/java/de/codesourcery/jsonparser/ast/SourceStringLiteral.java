@@ -0,0 +1,109 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+/**
+ * String literal backed by a region of the JSON source.
+ * 
+ * @see StringLiteral#fromSource(CharSequence, int, int)
+ */
+final class SourceStringLiteral extends StringLiteral
+{
+    private final CharSequence source;
+    private final int start;
+    private final int end;
+
+    public SourceStringLiteral(CharSequence source,int start,int end)
+    {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public String getValue() 
+    {
+        if ( value == null ) {
+            value = decode();
+        }
+        return value;
+    }
+
+    private String decode() 
+    {
+        int i = indexOfEscapedDollar( start );
+        if ( i == -1 ) {
+            return source.subSequence( start , end ).toString();
+        }
+        final StringBuilder buffer = new StringBuilder( end - start );
+        int from = start;
+        do {
+            buffer.append( source , from , i ).append( '$' );
+            from = i + 2;
+            i = indexOfEscapedDollar( from );
+        } while ( i != -1 );
+        return buffer.append( source , from , end ).toString();
+    }
+
+    private int indexOfEscapedDollar(int from) 
+    {
+        for ( int i = from ; i < end ; i++ ) 
+        {
+            if ( source.charAt( i ) == '\\' ) 
+            {
+                if ( source.charAt( i + 1 ) == '$' ) {
+                    return i;
+                }
+                i++; // skip escaped character
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean rawEquals(CharSequence s) 
+    {
+        if ( value != null ) {
+            return value.contentEquals( s );
+        }
+        final int len = s.length();
+        int j = 0;
+        for ( int i = start ; i < end ; i++ , j++ ) 
+        {
+            char c = source.charAt( i );
+            if ( c == '\\' ) 
+            {
+                if ( source.charAt( i + 1 ) == '$' ) {
+                    c = '$';
+                } 
+                else 
+                {
+                    // other escape sequences are part of the value, compare the backslash here
+                    if ( j >= len || s.charAt( j ) != c ) {
+                        return false;
+                    }
+                    j++;
+                    c = source.charAt( i + 1 );
+                }
+                i++;
+            } 
+            if ( j >= len || s.charAt( j ) != c ) {
+                return false;
+            }
+        }
+        return j == len;
+    }
+}
@@ -20,98 +20,110 @@ import java.util.Set;
 import java.util.function.Function;
 
 import de.codesourcery.jsonparser.Identifier;
-import de.codesourcery.jsonparser.util.MyParseException;
+import de.codesourcery.jsonparser.util.ASTVisitor;
 
 public class StringLiteral implements ASTNode
 {
-    public String value;
+    // lazily decoded by source-backed literals
+    String value;
+
+    // compiled on first use, PlaceholderTemplate.NONE if the value has no placeholders
+    private PlaceholderTemplate template;
 
     public StringLiteral(String value)
     {
         this.value = value;
     }
-    
+
+    StringLiteral() {
+    }
+
+    /**
+     * Creates a literal backed by a region of the JSON source, the value is only decoded when first accessed.
+     * 
+     * @param source JSON source, must not be modified afterwards
+     * @param start offset of the first character after the opening double quote
+     * @param end offset of the closing double quote
+     */
+    public static StringLiteral fromSource(CharSequence source,int start,int end) {
+        return new SourceStringLiteral( source , start , end );
+    }
+
+    /**
+     * Returns the string's contents.
+     * 
+     * Escape sequences are kept as they appear in the JSON source, except for <code>\$</code> which becomes <code>$</code>.
+     */
+    public String getValue() 
+    {
+        return value;
+    }
+
+    /**
+     * Returns whether this literal's value equals a string.
+     * 
+     * Literals created {@link #fromSource(CharSequence, int, int) from source} are compared directly 
+     * against the source, without decoding them.
+     */
+    public boolean rawEquals(CharSequence s) 
+    {
+        return value.contentEquals( s );
+    }
+
+    @Override
+    public NodeKind kind() {
+        return NodeKind.STRING;
+    }
+
+    @Override
+    public void accept(ASTVisitor visitor) {
+        visitor.visit( this );
+    }
+
     @Override
     public String toString()
     {
-        return '"' + value+'"';
+        return '"' + getValue()+'"';
     }
     
+    /**
+     * Returns the value with all placeholders replaced, placeholders the resolver returns <code>null</code> for are kept.
+     */
     public String getSubstitutedValue(Function<Identifier,String> resolver) 
     {
-        Set<Identifier> placeholders = getPlaceholderNames();
-        if ( placeholders.isEmpty() ) {
-            return this.value;
-        }
-        String tmp = this.value;
-        for ( Identifier id : placeholders ) 
-        {
-            final String resolved = resolver.apply( id );
-            if ( resolved != null ) {
-                tmp = tmp.replace( "${"+id.name+"}" , resolved );
-            }
+        final PlaceholderTemplate t = template();
+        return t == PlaceholderTemplate.NONE ? getValue() : t.render( resolver );
+    }
+
+    /**
+     * Appends the value with all placeholders replaced to a buffer.
+     * 
+     * @see #getSubstitutedValue(Function)
+     */
+    public void appendSubstitutedValue(StringBuilder buffer,Function<Identifier,String> resolver) 
+    {
+        final PlaceholderTemplate t = template();
+        if ( t == PlaceholderTemplate.NONE ) {
+            buffer.append( getValue() );
+        } else {
+            t.appendTo( buffer , resolver );
         }
-        return tmp;
     }
     
     public Set<Identifier> getPlaceholderNames() 
     {
-        final Set<Identifier> names = new HashSet<>();
-        
-        final StringBuilder buffer = new StringBuilder();
-        boolean inIdentifier = false;
-        boolean escaped = false;
-        boolean gotStart = false;
-        for (int i = 0 , len = value.length() ; i < len ; i++) 
+        return new HashSet<>( template().getNames() );
+    }
+
+    private PlaceholderTemplate template() 
+    {
+        // templates are immutable, racing threads at worst compile the same template twice
+        PlaceholderTemplate result = template;
+        if ( result == null ) 
         {
-            char c = value.charAt(i);
-            
-            if ( ! inIdentifier ) 
-            {
-                if ( ! escaped && c == '\\' ) {
-                    escaped = true;
-                    continue;
-                }
-                if ( escaped ) {
-                    escaped = false;
-                    continue;
-                }
-                if ( c == '$' ) {
-                    inIdentifier = true;
-                    gotStart = false;
-                }
-                continue;
-            }
-            
-            if ( ! gotStart ) 
-            {
-                if ( c != '{' ) {
-                    throw new MyParseException("Expected '{'",i);
-                }
-                gotStart = true;
-                continue;
-            }
-            
-            if ( c == '}' ) 
-            {
-                gotStart = false;
-                inIdentifier = false;
-                if ( buffer.length() == 0 ) {
-                    throw new MyParseException("Placeholder name required",i);
-                }
-                names.add( new Identifier( buffer.toString() ) );
-                buffer.setLength( 0 );
-                continue;
-            }
-            
-            if ( ! Identifier.isValidIdentifierChar( c ) ) {
-                throw new MyParseException("Character '"+c+"' not allowed in identifier",i);
-            }
-            buffer.append( c );
-        }
-        if ( inIdentifier ) {
-            throw new MyParseException("Unterminated placeholder expression",value.length());
+            result = PlaceholderTemplate.compile( getValue() );
+            template = result;
         }
-        return names;
+        return result;
     }
 }
@@ -4,7 +4,6 @@ import de.codesourcery.jsonparser.ast.ASTNode;
 import de.codesourcery.jsonparser.util.ASTPrinter;
 import org.apache.commons.lang3.ArrayUtils;
 
-import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -87,7 +86,7 @@ public class SkillTree
 //        {
 //            e.printStackTrace();
 //        }
-        final Map<String,Object> map = (Map<String, Object>) ast.toJavaObject();
+        final Map<String,Object> map = (Map<String, Object>) ast.asJavaObject();
         for ( String key : map.keySet())
         {
             final Object value = map.get(key);
@@ -164,33 +163,31 @@ public class SkillTree
         if ( obj == null ) {
             return new Integer[0];
         }
-        if ( ! obj.getClass().isArray() ) {
-            throw new IllegalArgumentException( "Not an array: "+obj );
+        if ( obj instanceof int[] ) {
+            return ArrayUtils.toObject( (int[]) obj );
         }
-        if ( Array.getLength(obj) == 0 ) {
+        if ( obj instanceof List && ((List<?>) obj).isEmpty() ) {
             return new Integer[0];
         }
-        final Class<?> components = obj.getClass().getComponentType();
-        if ( components == Integer.class ) {
-            return (Integer[]) obj;
-        }
-        throw new IllegalArgumentException( "Don't know how to convert "+obj+" (elements: "+components.getName()+")");
+        throw new IllegalArgumentException( "Don't know how to convert "+obj+" to int[]");
     }
 
     private String[] toStringArray(Object obj) {
         if ( obj == null ) {
             return new String[0];
         }
-        if ( ! obj.getClass().isArray() ) {
+        if ( ! (obj instanceof List) ) {
             throw new IllegalArgumentException( "Not an array: "+obj );
         }
-        if ( Array.getLength(obj) == 0 ) {
-            return new String[0];
-        }
-        final Class<?> components = obj.getClass().getComponentType();
-        if ( components == String.class ) {
-            return (String[]) obj;
+        final List<?> list = (List<?>) obj;
+        final String[] result = new String[ list.size() ];
+        for ( int i = 0 ; i < result.length ; i++ ) {
+            final Object value = list.get( i );
+            if ( !(value instanceof String) ) {
+                throw new IllegalArgumentException( "Don't know how to convert "+value+" to String");
+            }
+            result[i] = (String) value;
         }
-        throw new IllegalArgumentException( "Don't know how to convert "+obj+" (elements: "+components.getName()+")");
+        return result;
     }
-}
\ No newline at end of file
+}
@@ -2,12 +2,13 @@ package de.codesourcery.jsonparser.poe;
 
 import de.codesourcery.jsonparser.Parser;
 import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.util.StringPool;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 public class SkillTreeLoader
 {
@@ -15,18 +16,15 @@ public class SkillTreeLoader
 
     public SkillTree load() throws IOException
     {
-        final StringBuilder buffer = new StringBuilder();
+        final ASTNode ast;
         try ( InputStream in = getClass().getResourceAsStream( CLASSPATH ) ) {
             if ( in == null ) {
                 throw new FileNotFoundException( "Failed to open classpath:"+ CLASSPATH );
             }
-            BufferedReader reader = new BufferedReader( new InputStreamReader( in ) );
-            String line = null;
-            while ( (line = reader.readLine() ) != null ) {
-                buffer.append(line);
-            }
+            final Parser parser = new Parser();
+            parser.setStringPool( new StringPool() );
+            ast = parser.parse( new InputStreamReader( in , StandardCharsets.UTF_8 ) );
         }
-        final ASTNode ast = new Parser().parse( buffer.toString() );
         return new SkillTree( ast );
     }
 }
\ No newline at end of file
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.query;
+
+import java.util.List;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.BooleanLiteral;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+import de.codesourcery.jsonparser.util.EscapeSequences;
+
+/**
+ * Compiled filter expression of a {@link JSONPath} (<code>[?(...)]</code>).
+ */
+abstract class Filter
+{
+    public abstract boolean test(ASTNode node,ASTNode root);
+
+    enum Operator 
+    {
+        EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        public final String symbol;
+
+        private Operator(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    /**
+     * Left- or right-hand side of a comparison.
+     */
+    static abstract class Operand 
+    {
+        /**
+         * @return value or <code>null</code> if a path matched nothing
+         */
+        public abstract ASTNode value(ASTNode node,ASTNode root);
+    }
+
+    static final class Path extends Operand 
+    {
+        private final boolean absolute;
+        private final Step[] steps;
+
+        public Path(boolean absolute,Step[] steps) 
+        {
+            this.absolute = absolute;
+            this.steps = steps;
+        }
+
+        @Override
+        public ASTNode value(ASTNode node,ASTNode root) 
+        {
+            final List<ASTNode> result = JSONPath.evaluate( steps , absolute ? root : node , root );
+            return result.isEmpty() ? null : result.get( 0 );
+        }
+    }
+
+    static final class Literal extends Operand 
+    {
+        private final ASTNode value;
+
+        public Literal(ASTNode value) {
+            this.value = value;
+        }
+
+        @Override
+        public ASTNode value(ASTNode node,ASTNode root) {
+            return value;
+        }
+    }
+
+    static final class Exists extends Filter 
+    {
+        private final Path path;
+
+        public Exists(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public boolean test(ASTNode node,ASTNode root) {
+            return path.value( node , root ) != null;
+        }
+    }
+
+    static final class Comparison extends Filter 
+    {
+        private final Operand left;
+        private final Operator operator;
+        private final Operand right;
+
+        public Comparison(Operand left,Operator operator,Operand right) 
+        {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(ASTNode node,ASTNode root) 
+        {
+            final ASTNode a = left.value( node , root );
+            final ASTNode b = right.value( node , root );
+            if ( a == null || b == null ) {
+                return false;
+            }
+            if ( a.kind() != b.kind() ) {
+                // values of different types are never equal and have no order
+                return operator == Operator.NE;
+            }
+            final int cmp;
+            switch( a.kind() ) 
+            {
+                case NUMBER:
+                    cmp = compare( (NumberLiteral) a , (NumberLiteral) b );
+                    break;
+                case STRING:
+                    // compare the decoded characters so that escaped and plain text match
+                    cmp = EscapeSequences.unescape( ((StringLiteral) a).getValue() ).compareTo( EscapeSequences.unescape( ((StringLiteral) b).getValue() ) );
+                    break;
+                case BOOLEAN:
+                    cmp = Boolean.compare( ((BooleanLiteral) a).value , ((BooleanLiteral) b).value );
+                    break;
+                case NULL:
+                    cmp = 0;
+                    break;
+                default:
+                    // objects, arrays and placeholders have no value to compare
+                    return operator == Operator.NE;
+            }
+            switch( operator ) 
+            {
+                case EQ: return cmp == 0;
+                case NE: return cmp != 0;
+                case LT: return cmp < 0;
+                case LE: return cmp <= 0;
+                case GT: return cmp > 0;
+                case GE: return cmp >= 0;
+                default:
+                    throw new RuntimeException("Internal error, unhandled operator "+operator);
+            }
+        }
+
+        private static int compare(NumberLiteral a,NumberLiteral b) 
+        {
+            if ( a.isLong() && b.isLong() ) {
+                return Long.compare( a.longValue() , b.longValue() );
+            }
+            if ( ! a.isIntegral() && ! b.isIntegral() ) 
+            {
+                // unlike Double.compare(), -0.0 equals 0.0
+                final double x = a.doubleValue();
+                final double y = b.doubleValue();
+                return x < y ? -1 : ( x > y ? 1 : 0 );
+            }
+            return a.bigDecimalValue().compareTo( b.bigDecimalValue() );
+        }
+    }
+
+    static final class And extends Filter 
+    {
+        private final Filter left;
+        private final Filter right;
+
+        public And(Filter left,Filter right) 
+        {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(ASTNode node,ASTNode root) {
+            return left.test( node , root ) && right.test( node , root );
+        }
+    }
+
+    static final class Or extends Filter 
+    {
+        private final Filter left;
+        private final Filter right;
+
+        public Or(Filter left,Filter right) 
+        {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(ASTNode node,ASTNode root) {
+            return left.test( node , root ) || right.test( node , root );
+        }
+    }
+
+    static final class Not extends Filter 
+    {
+        private final Filter filter;
+
+        public Not(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean test(ASTNode node,ASTNode root) {
+            return ! filter.test( node , root );
+        }
+    }
+}
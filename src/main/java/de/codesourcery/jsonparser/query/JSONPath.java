@@ -0,0 +1,147 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.util.MyParseException;
+
+/**
+ * A compiled JSONPath expression that is evaluated directly against an AST.
+ * 
+ * Supported syntax:
+ * 
+ * <pre>
+ * $                   root node
+ * .name or ['name']   object member
+ * ['a','b']           several object members
+ * [0] [-1] [0,2]      array elements by index, negative indices count from the end
+ * [1:3] [:2] [-2:]    array slices (end is exclusive)
+ * .* or [*]           all object member values or array elements
+ * ..name ..* ..[0]    recursive descent, applies the selector to a node and all its descendants
+ * [?(filter)]         object member values or array elements matching a filter
+ * </pre>
+ * 
+ * Filters support relative (<code>@</code>) and absolute (<code>$</code>) paths, string, number, boolean and null
+ * literals, comparisons (<code>== != &lt; &lt;= &gt; &gt;=</code>), <code>&amp;&amp;</code>, <code>||</code>, <code>!</code> 
+ * and parentheses. A path on its own tests whether it matches anything. 
+ * String literals and string values are compared after resolving their escape sequences.
+ * 
+ * Compiled expressions are immutable and thread-safe, {@link #compile(String)} caches the most recently used ones.
+ */
+public final class JSONPath
+{
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    // least recently used expressions are evicted first, guarded by its own monitor
+    private static final Map<String,JSONPath> CACHE = new LinkedHashMap<String,JSONPath>( 16 , 0.75f , true ) 
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,JSONPath> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    private final String expression;
+    private final Step[] steps;
+
+    JSONPath(String expression,Step[] steps) 
+    {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    /**
+     * Returns the compiled query for an expression.
+     * 
+     * The {@value #MAX_CACHE_SIZE} most recently used queries are cached by expression string. 
+     * Code that runs a query in a hot loop should still keep the returned instance instead of compiling it repeatedly.
+     * 
+     * @throws MyParseException if the expression is invalid
+     */
+    public static JSONPath compile(String expression) 
+    {
+        JSONPath result;
+        synchronized( CACHE ) {
+            result = CACHE.get( expression );
+        }
+        if ( result == null ) 
+        {
+            // compile outside of the lock, racing threads at worst compile the same expression twice
+            result = new JSONPathCompiler( expression ).compile();
+            synchronized( CACHE ) {
+                CACHE.put( expression , result );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all nodes matched by this query, in document order.
+     */
+    public List<ASTNode> evaluate(ASTNode root) 
+    {
+        return evaluate( steps , root , root );
+    }
+
+    /**
+     * Returns the first node matched by this query.
+     * 
+     * @return node or <code>null</code> if nothing matched
+     */
+    public ASTNode first(ASTNode root) 
+    {
+        final List<ASTNode> result = evaluate( root );
+        return result.isEmpty() ? null : result.get( 0 );
+    }
+
+    static List<ASTNode> evaluate(Step[] steps,ASTNode start,ASTNode root) 
+    {
+        if ( steps.length == 0 ) {
+            return Collections.singletonList( start );
+        }
+        List<ASTNode> current = new ArrayList<>();
+        List<ASTNode> next = new ArrayList<>();
+        current.add( start );
+        for ( Step step : steps ) 
+        {
+            for ( int i = 0 , len = current.size() ; i < len ; i++ ) {
+                step.apply( current.get( i ) , root , next );
+            }
+            if ( next.isEmpty() ) {
+                return next;
+            }
+            final List<ASTNode> tmp = current;
+            current = next;
+            next = tmp;
+            next.clear();
+        }
+        return current;
+    }
+
+    @Override
+    public String toString()
+    {
+        return expression;
+    }
+}
@@ -0,0 +1,332 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.BooleanLiteral;
+import de.codesourcery.jsonparser.ast.NullLiteral;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+import de.codesourcery.jsonparser.util.MyParseException;
+
+/**
+ * Recursive-descent compiler for {@link JSONPath} expressions.
+ */
+final class JSONPathCompiler
+{
+    private final String input;
+    private int pos;
+
+    public JSONPathCompiler(String input) {
+        this.input = input;
+    }
+
+    public JSONPath compile() 
+    {
+        skipWhitespace();
+        expect( '$' );
+        final Step[] steps = steps();
+        skipWhitespace();
+        if ( ! eof() ) {
+            throw new MyParseException( "Unexpected character '"+input.charAt( pos )+"'" , pos );
+        }
+        return new JSONPath( input , steps );
+    }
+
+    private boolean eof() {
+        return pos >= input.length();
+    }
+
+    private boolean peek(char c) {
+        return pos < input.length() && input.charAt( pos ) == c;
+    }
+
+    private boolean consume(String s) 
+    {
+        if ( input.startsWith( s , pos ) ) {
+            pos += s.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) 
+    {
+        if ( ! peek( c ) ) {
+            throw new MyParseException( "Expected '"+c+"'" , pos );
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() 
+    {
+        while ( pos < input.length() && Character.isWhitespace( input.charAt( pos ) ) ) {
+            pos++;
+        }
+    }
+
+    private Step[] steps() 
+    {
+        final List<Step> result = new ArrayList<>();
+        while ( true ) 
+        {
+            if ( consume( ".." ) ) {
+                result.add( new Step.Descendants( peek( '[' ) ? bracket() : dotSelector() ) );
+            } else if ( consume( "." ) ) {
+                result.add( dotSelector() );
+            } else if ( peek( '[' ) ) {
+                result.add( bracket() );
+            } else {
+                return result.toArray( new Step[ result.size() ] );
+            }
+        }
+    }
+
+    private Step dotSelector() 
+    {
+        if ( consume( "*" ) ) {
+            return new Step.Wildcard();
+        }
+        final int start = pos;
+        while ( pos < input.length() && isNameChar( input.charAt( pos ) ) ) {
+            pos++;
+        }
+        if ( start == pos ) {
+            throw new MyParseException( "Expected member name" , pos );
+        }
+        return new Step.Members( new String[] { input.substring( start , pos ) } );
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit( c ) || c == '_' || c == '-' || c == '$';
+    }
+
+    private Step bracket() 
+    {
+        expect( '[' );
+        skipWhitespace();
+        final Step result;
+        if ( consume( "*" ) ) 
+        {
+            result = new Step.Wildcard();
+        } 
+        else if ( consume( "?(" ) ) 
+        {
+            result = new Step.Filtered( or() );
+            skipWhitespace();
+            expect( ')' );
+        } 
+        else if ( peek( '\'' ) || peek( '"' ) ) 
+        {
+            final List<String> names = new ArrayList<>();
+            do {
+                skipWhitespace();
+                names.add( string() );
+                skipWhitespace();
+            } while ( consume( "," ) );
+            result = new Step.Members( names.toArray( new String[ names.size() ] ) );
+        } 
+        else 
+        {
+            final Integer first = peek( ':' ) ? null : integer();
+            skipWhitespace();
+            if ( consume( ":" ) ) 
+            {
+                skipWhitespace();
+                result = new Step.Slice( first , peek( ']' ) ? null : integer() );
+            } 
+            else 
+            {
+                final List<Integer> indices = new ArrayList<>();
+                indices.add( first );
+                while ( consume( "," ) ) 
+                {
+                    skipWhitespace();
+                    indices.add( integer() );
+                    skipWhitespace();
+                }
+                result = new Step.Indices( indices.stream().mapToInt( Integer::intValue ).toArray() );
+            }
+        }
+        skipWhitespace();
+        expect( ']' );
+        return result;
+    }
+
+    private int integer() 
+    {
+        final int start = pos;
+        consume( "-" );
+        while ( pos < input.length() && Character.isDigit( input.charAt( pos ) ) ) {
+            pos++;
+        }
+        try {
+            return Integer.parseInt( input.substring( start , pos ) );
+        } catch(NumberFormatException e) {
+            throw new MyParseException( "Expected an array index" , start );
+        }
+    }
+
+    /*
+     * Quoted strings are taken verbatim, except that a backslash followed by the 
+     * quote character yields the quote character.
+     */
+    private String string() 
+    {
+        final int start = pos;
+        final char quote = input.charAt( pos++ );
+        final StringBuilder buffer = new StringBuilder();
+        while ( true ) 
+        {
+            if ( eof() ) {
+                throw new MyParseException( "Unterminated string literal" , start );
+            }
+            final char c = input.charAt( pos++ );
+            if ( c == quote ) {
+                return buffer.toString();
+            }
+            if ( c == '\\' && peek( quote ) ) {
+                buffer.append( quote );
+                pos++;
+            } else {
+                buffer.append( c );
+            }
+        }
+    }
+
+    private Filter or() 
+    {
+        Filter result = and();
+        skipWhitespace();
+        while ( consume( "||" ) ) 
+        {
+            result = new Filter.Or( result , and() );
+            skipWhitespace();
+        }
+        return result;
+    }
+
+    private Filter and() 
+    {
+        Filter result = unary();
+        skipWhitespace();
+        while ( consume( "&&" ) ) 
+        {
+            result = new Filter.And( result , unary() );
+            skipWhitespace();
+        }
+        return result;
+    }
+
+    private Filter unary() 
+    {
+        skipWhitespace();
+        if ( peek( '!' ) && ! input.startsWith( "!=" , pos ) ) 
+        {
+            pos++;
+            return new Filter.Not( unary() );
+        }
+        if ( consume( "(" ) ) 
+        {
+            final Filter result = or();
+            skipWhitespace();
+            expect( ')' );
+            return result;
+        }
+        return comparison();
+    }
+
+    private Filter comparison() 
+    {
+        final int start = pos;
+        final Filter.Operand left = operand();
+        skipWhitespace();
+        final Filter.Operator operator = operator();
+        if ( operator == null ) 
+        {
+            if ( !( left instanceof Filter.Path ) ) {
+                throw new MyParseException( "Expected a comparison operator" , pos );
+            }
+            return new Filter.Exists( (Filter.Path) left );
+        }
+        skipWhitespace();
+        final Filter.Operand right = operand();
+        if ( left instanceof Filter.Literal && right instanceof Filter.Literal ) {
+            throw new MyParseException( "Comparison requires at least one path" , start );
+        }
+        return new Filter.Comparison( left , operator , right );
+    }
+
+    private Filter.Operator operator() 
+    {
+        // longest symbols first
+        for ( String symbol : new String[] { "==" , "!=" , "<=" , ">=" , "<" , ">" } ) 
+        {
+            if ( consume( symbol ) ) 
+            {
+                for ( Filter.Operator op : Filter.Operator.values() ) 
+                {
+                    if ( op.symbol.equals( symbol ) ) {
+                        return op;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private Filter.Operand operand() 
+    {
+        if ( consume( "@" ) ) {
+            return new Filter.Path( false , steps() );
+        }
+        if ( consume( "$" ) ) {
+            return new Filter.Path( true , steps() );
+        }
+        if ( peek( '\'' ) || peek( '"' ) ) {
+            return new Filter.Literal( new StringLiteral( string() ) );
+        }
+        if ( consume( "true" ) ) {
+            return new Filter.Literal( new BooleanLiteral( true ) );
+        }
+        if ( consume( "false" ) ) {
+            return new Filter.Literal( new BooleanLiteral( false ) );
+        }
+        if ( consume( "null" ) ) {
+            return new Filter.Literal( new NullLiteral() );
+        }
+        return new Filter.Literal( number() );
+    }
+
+    private ASTNode number() 
+    {
+        final int start = pos;
+        while ( pos < input.length() && "+-.eE0123456789".indexOf( input.charAt( pos ) ) != -1 ) {
+            pos++;
+        }
+        if ( start == pos ) {
+            throw new MyParseException( "Expected a path or literal value" , pos );
+        }
+        try {
+            return new NumberLiteral( input.substring( start , pos ) );
+        } catch(IllegalArgumentException e) {
+            throw new MyParseException( "Invalid number" , start );
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.query;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NodeKind;
+
+/**
+ * A single selector of a compiled {@link JSONPath}.
+ */
+abstract class Step
+{
+    /**
+     * Adds all nodes selected from the given node to the result.
+     */
+    public abstract void apply(ASTNode node,ASTNode root,List<ASTNode> result);
+
+    static final class Members extends Step 
+    {
+        private final String[] names;
+
+        public Members(String[] names) {
+            this.names = names;
+        }
+
+        @Override
+        public void apply(ASTNode node,ASTNode root,List<ASTNode> result) 
+        {
+            if ( node.kind() == NodeKind.OBJECT ) 
+            {
+                for ( String name : names ) 
+                {
+                    final ASTNode value = ((JSONObject) node).get( name );
+                    if ( value != null ) {
+                        result.add( value );
+                    }
+                }
+            }
+        }
+    }
+
+    static final class Indices extends Step 
+    {
+        private final int[] indices;
+
+        public Indices(int[] indices) {
+            this.indices = indices;
+        }
+
+        @Override
+        public void apply(ASTNode node,ASTNode root,List<ASTNode> result) 
+        {
+            if ( node.kind() == NodeKind.ARRAY ) 
+            {
+                final int size = node.childCount();
+                for ( int index : indices ) 
+                {
+                    final int i = index < 0 ? size + index : index;
+                    if ( i >= 0 && i < size ) {
+                        result.add( node.child( i ) );
+                    }
+                }
+            }
+        }
+    }
+
+    static final class Slice extends Step 
+    {
+        private final Integer start;
+        private final Integer end;
+
+        public Slice(Integer start,Integer end) 
+        {
+            this.start = start;
+            this.end = end;
+        }
+
+        private static int clamp(Integer index,int size,int defaultValue) 
+        {
+            if ( index == null ) {
+                return defaultValue;
+            }
+            final int i = index < 0 ? size + index : index;
+            return Math.max( 0 , Math.min( i , size ) );
+        }
+
+        @Override
+        public void apply(ASTNode node,ASTNode root,List<ASTNode> result) 
+        {
+            if ( node.kind() == NodeKind.ARRAY ) 
+            {
+                final int size = node.childCount();
+                for ( int i = clamp( start , size , 0 ) , max = clamp( end , size , size ) ; i < max ; i++ ) {
+                    result.add( node.child( i ) );
+                }
+            }
+        }
+    }
+
+    static final class Wildcard extends Step 
+    {
+        @Override
+        public void apply(ASTNode node,ASTNode root,List<ASTNode> result) 
+        {
+            switch( node.kind() ) 
+            {
+                case OBJECT:
+                    for ( int i = 0 , len = node.childCount() ; i < len ; i++ ) {
+                        result.add( ((KeyValue) node.child( i )).value() );
+                    }
+                    break;
+                case ARRAY:
+                    for ( int i = 0 , len = node.childCount() ; i < len ; i++ ) {
+                        result.add( node.child( i ) );
+                    }
+                    break;
+                default:
+                    // leaf nodes have no children
+            }
+        }
+    }
+
+    static final class Filtered extends Step 
+    {
+        private final Filter filter;
+
+        public Filtered(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public void apply(ASTNode node,ASTNode root,List<ASTNode> result) 
+        {
+            switch( node.kind() ) 
+            {
+                case OBJECT:
+                    for ( int i = 0 , len = node.childCount() ; i < len ; i++ ) 
+                    {
+                        final ASTNode value = ((KeyValue) node.child( i )).value();
+                        if ( filter.test( value , root ) ) {
+                            result.add( value );
+                        }
+                    }
+                    break;
+                case ARRAY:
+                    for ( int i = 0 , len = node.childCount() ; i < len ; i++ ) 
+                    {
+                        final ASTNode value = node.child( i );
+                        if ( filter.test( value , root ) ) {
+                            result.add( value );
+                        }
+                    }
+                    break;
+                default:
+                    // leaf nodes have no children
+            }
+        }
+    }
+
+    /**
+     * Applies a selector to a node and all of its descendants, in document order.
+     */
+    static final class Descendants extends Step 
+    {
+        private final Step selector;
+
+        public Descendants(Step selector) {
+            this.selector = selector;
+        }
+
+        @Override
+        public void apply(ASTNode node,ASTNode root,List<ASTNode> result) 
+        {
+            final ArrayDeque<ASTNode> stack = new ArrayDeque<>();
+            stack.push( node );
+            while ( ! stack.isEmpty() ) 
+            {
+                final ASTNode current = stack.pop();
+                selector.apply( current , root , result );
+                switch( current.kind() ) 
+                {
+                    case OBJECT:
+                        for ( int i = current.childCount() - 1 ; i >= 0 ; i-- ) {
+                            stack.push( ((KeyValue) current.child( i )).value() );
+                        }
+                        break;
+                    case ARRAY:
+                        for ( int i = current.childCount() - 1 ; i >= 0 ; i-- ) {
+                            stack.push( current.child( i ) );
+                        }
+                        break;
+                    default:
+                        // leaf nodes have no children
+                }
+            }
+        }
+    }
+}
@@ -15,6 +15,12 @@
  */
 package de.codesourcery.jsonparser.util;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.Iterator;
 import java.util.function.Function;
 
@@ -31,14 +37,19 @@ import de.codesourcery.jsonparser.ast.StringLiteral;
 
 public class ASTPrinter extends ASTVisitor
 {
+    // number of buffered characters after which output gets passed to the destination
+    private static final int FLUSH_THRESHOLD = 8192;
+
     private StringBuilder buffer = new StringBuilder();
+    private Appendable out;
+    private char[] chars = new char[0];
 
     private boolean prettyPrint = true;
     private int depth = 0;
     private Function<Identifier,String> placeholderResolver;
 
     public String print(ASTNode node) {
-        return print(node,null);
+        return print(node,(Function<Identifier,String>) null);
     }
     
     public String print(ASTNode node,Function<Identifier,String> placeholderResolver) 
@@ -50,8 +61,83 @@ public class ASTPrinter extends ASTVisitor
         return buffer.toString();
     }
 
+    public void print(ASTNode node,Appendable out) throws IOException {
+        print(node,out,null);
+    }
+
+    /**
+     * Prints to an {@link Appendable}, buffering at most a few kilobytes of output
+     * (plus the length of the longest string literal) at a time.
+     */
+    public void print(ASTNode node,Appendable out,Function<Identifier,String> placeholderResolver) throws IOException
+    {
+        this.placeholderResolver = placeholderResolver == null ? id -> null : placeholderResolver;
+        this.out = out;
+        depth = 0;
+        buffer.setLength( 0 );
+        try 
+        {
+            super.visit( node );
+            flush();
+        } 
+        catch(UncheckedIOException e) {
+            throw e.getCause();
+        } 
+        finally 
+        {
+            this.out = null;
+            buffer.setLength( 0 );
+        }
+    }
+
+    public void print(ASTNode node,OutputStream out,Charset charset) throws IOException {
+        print(node,out,charset,null);
+    }
+
+    /**
+     * Prints to an {@link OutputStream}, the stream is flushed but not closed.
+     * 
+     * @see #print(ASTNode, Appendable, Function)
+     */
+    public void print(ASTNode node,OutputStream out,Charset charset,Function<Identifier,String> placeholderResolver) throws IOException
+    {
+        final Writer writer = new OutputStreamWriter( out , charset );
+        print( node , writer , placeholderResolver );
+        writer.flush();
+    }
+
+    private void maybeFlush() 
+    {
+        if ( out != null && buffer.length() >= FLUSH_THRESHOLD ) {
+            flush();
+        }
+    }
+
+    private void flush() 
+    {
+        try 
+        {
+            if ( out instanceof Writer ) 
+            {
+                // avoids the String that Writer#append(CharSequence) creates
+                final int len = buffer.length();
+                if ( chars.length < len ) {
+                    chars = new char[ Math.max( len , FLUSH_THRESHOLD ) ];
+                }
+                buffer.getChars( 0 , len , chars , 0 );
+                ((Writer) out).write( chars , 0 , len );
+            } else {
+                out.append( buffer );
+            }
+            buffer.setLength( 0 );
+        } 
+        catch (IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
     @Override
-    protected void visit(BooleanLiteral node)
+    public void visit(BooleanLiteral node)
     {
         buffer.append( node.toString() );
     }
@@ -92,7 +178,7 @@ public class ASTPrinter extends ASTVisitor
     }    
 
     @Override
-    protected void visit(JSONArray node)
+    public void visit(JSONArray node)
     {
         buffer.append( "[" );
         depth++;
@@ -112,6 +198,7 @@ public class ASTPrinter extends ASTVisitor
                     buffer.append(",");
                     maybeAppendNewline();                
                 }
+                maybeFlush();
             }
         } finally {
             depth--;
@@ -121,7 +208,7 @@ public class ASTPrinter extends ASTVisitor
     }
 
     @Override
-    protected void visit(JSONObject node)
+    public void visit(JSONObject node)
     {
         buffer.append( "{" );
         depth++;
@@ -140,6 +227,7 @@ public class ASTPrinter extends ASTVisitor
                     buffer.append(",");
                     maybeAppendNewline();                
                 }
+                maybeFlush();
             }
             maybeAppendNewline();
         } finally {
@@ -150,7 +238,7 @@ public class ASTPrinter extends ASTVisitor
     }
 
     @Override
-    protected void visit(KeyValue node)
+    public void visit(KeyValue node)
     {
         visit( node.key() );
         maybeAppendWhitespace();
@@ -160,19 +248,19 @@ public class ASTPrinter extends ASTVisitor
     }
 
     @Override
-    protected void visit(NullLiteral node)
+    public void visit(NullLiteral node)
     {
         buffer.append("null");
     }
 
     @Override
-    protected void visit(NumberLiteral node)
+    public void visit(NumberLiteral node)
     {
-        buffer.append( node.value );
+        node.appendTo( buffer );
     }
 
     @Override
-    protected void visit(PlaceholderExpression node)
+    public void visit(PlaceholderExpression node)
     {
         String resolved = resolvePlaceholder( node.name );
         if ( resolved == null ) {
@@ -189,10 +277,10 @@ public class ASTPrinter extends ASTVisitor
     }
 
     @Override
-    protected void visit(StringLiteral node)
+    public void visit(StringLiteral node)
     {
         buffer.append('"');
-        buffer.append( node.getSubstitutedValue( this::resolvePlaceholder ) );
+        node.appendSubstitutedValue( buffer , placeholderResolver );
         buffer.append('"');
     }
     
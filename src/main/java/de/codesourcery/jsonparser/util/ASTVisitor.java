@@ -29,24 +29,18 @@ public class ASTVisitor
 {
     public final void visit(ASTNode node) 
     {
-        if ( node instanceof BooleanLiteral) {
-            visit( (BooleanLiteral) node);
-        } else if ( node instanceof JSONArray) {
-            visit( (JSONArray) node);
-        } else if ( node instanceof JSONObject) {
-            visit( (JSONObject) node);
-        } else if ( node instanceof KeyValue) {
-            visit( (KeyValue) node);
-        } else if ( node instanceof NullLiteral) {
-            visit( (NullLiteral) node);
-        } else if ( node instanceof NumberLiteral) {
-            visit( (NumberLiteral) node);
-        } else if ( node instanceof PlaceholderExpression) {
-            visit( (PlaceholderExpression) node);
-        } else if ( node instanceof StringLiteral) {
-            visit( (StringLiteral) node);
-        } else {
-            throw new RuntimeException("Internal error,unhandled AST node "+node);
+        switch( node.kind() ) 
+        {
+            case BOOLEAN:     visit( (BooleanLiteral) node); break;
+            case ARRAY:       visit( (JSONArray) node); break;
+            case OBJECT:      visit( (JSONObject) node); break;
+            case KEY_VALUE:   visit( (KeyValue) node); break;
+            case NULL:        visit( (NullLiteral) node); break;
+            case NUMBER:      visit( (NumberLiteral) node); break;
+            case PLACEHOLDER: visit( (PlaceholderExpression) node); break;
+            case STRING:      visit( (StringLiteral) node); break;
+            default:
+                throw new RuntimeException("Internal error,unhandled AST node "+node);
         }
     }
     
@@ -57,27 +51,27 @@ public class ASTVisitor
         }
     }
     
-    protected void visit(BooleanLiteral node) {
+    public void visit(BooleanLiteral node) {
         
     }
     
-    protected void visit(JSONArray node) { 
+    public void visit(JSONArray node) { 
         visitChildren(node);
     }
     
-    protected void visit(JSONObject node) { 
+    public void visit(JSONObject node) { 
         visitChildren(node);
     }
     
-    protected void visit(KeyValue node) { 
+    public void visit(KeyValue node) { 
         visitChildren(node);
     }
     
-    protected void visit(NullLiteral node) { }
+    public void visit(NullLiteral node) { }
     
-    protected void visit(NumberLiteral node) { }
+    public void visit(NumberLiteral node) { }
     
-    protected void visit(PlaceholderExpression node) { }
+    public void visit(PlaceholderExpression node) { }
     
-    protected void visit(StringLiteral node) { }
+    public void visit(StringLiteral node) { }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+/**
+ * Validation of escape sequences inside string literals, shared by the lexers and serializers.
+ * 
+ * String values keep escape sequences as they appear in the JSON source, except for <code>\$</code> which becomes <code>$</code>.
+ */
+public final class EscapeSequences
+{
+    private EscapeSequences() {
+    }
+
+    /**
+     * Appends the escape sequence started by a backslash followed by the given character.
+     * 
+     * Passing a <code>null</code> buffer only validates the escape sequence.
+     * 
+     * For unicode escapes only the prefix is appended, callers need to pass the following
+     * four characters to {@link #appendHexDigit(int, StringBuilder, int)}.
+     * 
+     * @param c character following the backslash
+     * @param offset input offset of <code>c</code>, used for error reporting
+     * @throws MyParseException if the escape sequence is invalid
+     */
+    public static void appendEscape(char c,StringBuilder buffer,boolean supportsPlaceholders,int offset) 
+    {
+        switch( c ) 
+        {
+            case 'u':
+                if ( buffer != null ) {
+                    buffer.append( "\\u" );
+                }
+                break;
+            case '$':
+                if ( ! supportsPlaceholders ) {
+                    throw new MyParseException("Invalid escape sequence" , offset );
+                }
+                if ( buffer != null ) {
+                    buffer.append( '$' );
+                }
+                break;
+            case '"':
+            case '\\':
+            case '/':
+            case 'b':
+            case 'f':
+            case 'n':
+            case 'r':
+            case 't':
+                if ( buffer != null ) {
+                    buffer.append( '\\' ).append( c );
+                }
+                break;
+            default:
+                throw new MyParseException("Invalid escape sequence" , offset );
+        }
+    }
+
+    /**
+     * Appends one of the four hex digits of a unicode escape sequence.
+     * 
+     * @param c character to append or -1 if the input ended
+     * @param buffer buffer to append to, <code>null</code> to only validate the character
+     * @param offset input offset of <code>c</code>, used for error reporting
+     * @throws MyParseException if the character is not a hex digit
+     */
+    public static void appendHexDigit(int c,StringBuilder buffer,int offset) 
+    {
+        if ( c == -1 || ! isHexDigit( (char) c ) ) {
+            throw new MyParseException("\\u requires 4 hex digits" , offset );
+        }
+        if ( buffer != null ) {
+            buffer.append( (char) c );
+        }
+    }
+
+    /**
+     * Returns whether a backslash followed by the given character starts a valid JSON escape sequence.
+     */
+    public static boolean isEscapeCharacter(char c) 
+    {
+        switch( c ) 
+        {
+            case '"':
+            case '\\':
+            case '/':
+            case 'b':
+            case 'f':
+            case 'n':
+            case 'r':
+            case 't':
+            case 'u':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Resolves the escape sequences of a string value as returned by {@link de.codesourcery.jsonparser.ast.StringLiteral#getValue()}.
+     * 
+     * Malformed escape sequences are kept as they are.
+     */
+    public static String unescape(String value) 
+    {
+        int i = value.indexOf( '\\' );
+        if ( i == -1 ) {
+            return value;
+        }
+        final int len = value.length();
+        final StringBuilder buffer = new StringBuilder( len );
+        buffer.append( value , 0 , i );
+        for ( ; i < len ; i++ ) 
+        {
+            final char c = value.charAt( i );
+            if ( c != '\\' || i + 1 == len ) 
+            {
+                buffer.append( c );
+                continue;
+            }
+            final char next = value.charAt( i + 1 );
+            switch( next ) 
+            {
+                case '"':
+                case '\\':
+                case '/':  buffer.append( next ); break;
+                case 'b':  buffer.append( '\b' ); break;
+                case 'f':  buffer.append( '\f' ); break;
+                case 'n':  buffer.append( '\n' ); break;
+                case 'r':  buffer.append( '\r' ); break;
+                case 't':  buffer.append( '\t' ); break;
+                case 'u':
+                    if ( i + 6 <= len && isHexDigit( value.charAt( i + 2 ) ) && isHexDigit( value.charAt( i + 3 ) ) 
+                            && isHexDigit( value.charAt( i + 4 ) ) && isHexDigit( value.charAt( i + 5 ) ) ) 
+                    {
+                        buffer.append( (char) Integer.parseInt( value.substring( i + 2 , i + 6 ) , 16 ) );
+                        i += 4;
+                        break;
+                    }
+                    buffer.append( c ).append( next );
+                    break;
+                default:
+                    buffer.append( c ).append( next );
+            }
+            i++;
+        }
+        return buffer.toString();
+    }
+
+    public static boolean isHexDigit(char c) 
+    {
+        return ( c >= '0' && c <= '9' ) || ( c >= 'a' && c <= 'f' ) || ( c >= 'A' && c <= 'F' );
+    }
+}
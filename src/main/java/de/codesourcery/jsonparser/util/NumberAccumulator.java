@@ -0,0 +1,136 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+/**
+ * Accumulates the value of a JSON number while its characters are being read.
+ *
+ * Integers that fit into a <code>long</code> are converted exactly, other numbers
+ * are converted to <code>double</code> using an exact fast path when the
+ * significand and decimal exponent are small enough and fall back to {@link Double#parseDouble(String)} 
+ * otherwise.
+ */
+public final class NumberAccumulator
+{
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // largest significand that can be represented exactly by a double
+    private static final long MAX_EXACT_SIGNIFICAND = 1L << 53;
+
+    private static final int MAX_EXPONENT = 100_000;
+
+    private boolean negative;
+    private long significand;
+    private boolean overflow;
+    private boolean integral;
+    private int fractionDigits;
+    private int exponent;
+    private boolean negativeExponent;
+
+    public NumberAccumulator() {
+        reset();
+    }
+
+    public void reset() 
+    {
+        negative = false;
+        significand = 0;
+        overflow = false;
+        integral = true;
+        fractionDigits = 0;
+        exponent = 0;
+        negativeExponent = false;
+    }
+
+    public void setNegative() {
+        negative = true;
+    }
+
+    private void significandDigit(char c) 
+    {
+        final int digit = c - '0';
+        if ( significand > (Long.MAX_VALUE - digit) / 10 ) {
+            overflow = true;
+        } else {
+            significand = significand * 10 + digit;
+        }
+    }
+
+    public void integerDigit(char c) {
+        significandDigit( c );
+    }
+
+    public void fractionDigit(char c) 
+    {
+        integral = false;
+        significandDigit( c );
+        fractionDigits++;
+    }
+
+    public void setNegativeExponent() {
+        negativeExponent = true;
+    }
+
+    public void exponentDigit(char c) 
+    {
+        integral = false;
+        if ( exponent < MAX_EXPONENT ) {
+            exponent = exponent * 10 + ( c - '0' );
+        }
+    }
+
+    /**
+     * Returns whether the number had neither a fraction nor an exponent.
+     */
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    /**
+     * Returns whether the number is integral and fits into a <code>long</code>.
+     */
+    public boolean isLong() {
+        return integral && ! overflow;
+    }
+
+    public long longValue() 
+    {
+        if ( ! isLong() ) {
+            throw new IllegalStateException("Not a long value");
+        }
+        return negative ? -significand : significand;
+    }
+
+    /**
+     * Returns the number as a double.
+     * 
+     * @param chars the number's characters, only used when the fast path is not applicable
+     * @param len number of characters
+     */
+    public double doubleValue(char[] chars,int len) 
+    {
+        final int exp10 = (negativeExponent ? -exponent : exponent) - fractionDigits;
+        if ( ! overflow && significand <= MAX_EXACT_SIGNIFICAND && exp10 >= -22 && exp10 <= 22 ) 
+        {
+            final double value = exp10 < 0 ? significand / POWERS_OF_TEN[ -exp10 ] : significand * POWERS_OF_TEN[ exp10 ];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble( new String( chars , 0 , len ) );
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.UnaryOperator;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.JSONArray;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NodeKind;
+
+/**
+ * Builds a new tree by applying a mapping function to every node, bottom-up.
+ * 
+ * Arrays and objects get copied with their already mapped children before being passed
+ * to the function, leaf nodes are passed as-is. If the function returns <code>null</code> the node is
+ * removed from its parent, object members (and thus keys) can be renamed or removed
+ * by mapping the {@link KeyValue} node. The input tree is never modified.
+ * 
+ * Children of arrays and objects with at least <code>threshold</code> children are mapped
+ * in parallel using {@link ForkJoinPool} tasks of at most <code>threshold / 2</code> children each, 
+ * so the function must be thread-safe.
+ */
+public class ParallelASTTransformer
+{
+    private final UnaryOperator<ASTNode> function;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelASTTransformer(UnaryOperator<ASTNode> function) {
+        this( function , ForkJoinPool.commonPool() , ParallelASTVisitor.DEFAULT_THRESHOLD );
+    }
+
+    /**
+     * @param function mapping function
+     * @param pool pool to run tasks in
+     * @param threshold minimum number of children a node needs to have before they get mapped in parallel
+     */
+    public ParallelASTTransformer(UnaryOperator<ASTNode> function,ForkJoinPool pool,int threshold)
+    {
+        if ( function == null ) {
+            throw new IllegalArgumentException("Function must not be NULL");
+        }
+        if ( pool == null ) {
+            throw new IllegalArgumentException("Pool must not be NULL");
+        }
+        if ( threshold < 1 ) {
+            throw new IllegalArgumentException("Threshold must be >= 1");
+        }
+        this.function = function;
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns the transformed tree or <code>null</code> if the root node was removed.
+     */
+    public ASTNode transform(ASTNode root) 
+    {
+        return pool.invoke( new RecursiveTask<ASTNode>() 
+        {
+            @Override
+            protected ASTNode compute() {
+                return map( root );
+            }
+        });
+    }
+
+    private ASTNode map(ASTNode node) 
+    {
+        switch( node.kind() ) 
+        {
+            case OBJECT:
+                return function.apply( new JSONObject( mapChildren( node , true ) ) );
+            case ARRAY:
+                return function.apply( new JSONArray( mapChildren( node , false ) ) );
+            case KEY_VALUE:
+                final KeyValue kv = (KeyValue) node;
+                final ASTNode value = map( kv.value() );
+                if ( value == null ) {
+                    return null;
+                }
+                return function.apply( value == kv.value() ? kv : new KeyValue( kv.key() , value ) );
+            default:
+                return function.apply( node );
+        }
+    }
+
+    private List<ASTNode> mapChildren(ASTNode node,boolean isObject) 
+    {
+        final int count = node.childCount();
+        final ASTNode[] mapped = new ASTNode[ count ];
+        if ( count >= threshold ) {
+            new ChildrenTask( node , mapped , 0 , count ).invoke();
+        } else {
+            mapRange( node , mapped , 0 , count );
+        }
+        final List<ASTNode> result = new ArrayList<>( count );
+        for ( ASTNode child : mapped ) 
+        {
+            if ( child != null ) 
+            {
+                if ( isObject && child.kind() != NodeKind.KEY_VALUE ) {
+                    throw new IllegalStateException("Object members must be mapped to KeyValue nodes but got "+child);
+                }
+                result.add( child );
+            }
+        }
+        return result;
+    }
+
+    private void mapRange(ASTNode node,ASTNode[] mapped,int from,int to) 
+    {
+        for ( int i = from ; i < to ; i++ ) {
+            mapped[i] = map( node.child( i ) );
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class ChildrenTask extends RecursiveAction 
+    {
+        private final ASTNode parent;
+        private final ASTNode[] mapped;
+        private final int from;
+        private final int to;
+
+        public ChildrenTask(ASTNode parent,ASTNode[] mapped,int from,int to)
+        {
+            this.parent = parent;
+            this.mapped = mapped;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            // containers reaching the threshold get split at least once
+            if ( to - from <= Math.max( 1 , threshold / 2 ) ) {
+                mapRange( parent , mapped , from , to );
+                return;
+            }
+            final int mid = ( from + to ) >>> 1;
+            invokeAll( new ChildrenTask( parent , mapped , from , mid ) , new ChildrenTask( parent , mapped , mid , to ) );
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.BooleanLiteral;
+import de.codesourcery.jsonparser.ast.JSONArray;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NullLiteral;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.PlaceholderExpression;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+
+/**
+ * Parallel counterpart of {@link ASTVisitor} that aggregates a result over a tree.
+ * 
+ * Every node is passed to the <code>visit()</code> method matching its type, the 
+ * results of a node and all of its descendants are then combined using {@link #merge(Object, Object)}.
+ * The children of arrays and objects with at least <code>threshold</code> children are split into
+ * {@link ForkJoinPool} tasks of at most <code>threshold / 2</code> children each, smaller containers are traversed sequentially.
+ * 
+ * Subclasses must honor the following contract:
+ * <ul>
+ *   <li><code>merge()</code> is associative and {@link #identity()} is neutral with regard to it.
+ *   Results are always merged in document order so <code>merge()</code> need not be commutative.</li>
+ *   <li><code>visit()</code> methods may be invoked concurrently from different threads and must not modify shared state.</li>
+ * </ul>
+ * 
+ * @param <R> result type
+ */
+public abstract class ParallelASTVisitor<R>
+{
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelASTVisitor() {
+        this( ForkJoinPool.commonPool() , DEFAULT_THRESHOLD );
+    }
+
+    /**
+     * @param pool pool to run tasks in
+     * @param threshold minimum number of children a node needs to have before they get traversed in parallel
+     */
+    public ParallelASTVisitor(ForkJoinPool pool,int threshold)
+    {
+        if ( pool == null ) {
+            throw new IllegalArgumentException("Pool must not be NULL");
+        }
+        if ( threshold < 1 ) {
+            throw new IllegalArgumentException("Threshold must be >= 1");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Visits a tree and returns the merged result of all its nodes.
+     */
+    public final R visit(ASTNode root) {
+        return pool.invoke( new SubtreeTask( root ) );
+    }
+
+    /**
+     * Returns the neutral element of {@link #merge(Object, Object)}.
+     */
+    protected abstract R identity();
+
+    /**
+     * Combines two results, <code>left</code> always stems from nodes that precede the nodes 
+     * <code>right</code> was computed from.
+     */
+    protected abstract R merge(R left,R right);
+
+    private R visitSubtree(ASTNode node) 
+    {
+        final R result = visitNode( node );
+        final int count = node.childCount();
+        if ( count == 0 ) {
+            return result;
+        }
+        final R children = count >= threshold ? new ChildrenTask( node , 0 , count ).invoke() : visitChildren( node , 0 , count );
+        return merge( result , children );
+    }
+
+    private R visitChildren(ASTNode node,int from,int to) 
+    {
+        R result = identity();
+        for ( int i = from ; i < to ; i++ ) {
+            result = merge( result , visitSubtree( node.child( i ) ) );
+        }
+        return result;
+    }
+
+    private R visitNode(ASTNode node) 
+    {
+        switch( node.kind() ) 
+        {
+            case BOOLEAN:     return visit( (BooleanLiteral) node);
+            case ARRAY:       return visit( (JSONArray) node);
+            case OBJECT:      return visit( (JSONObject) node);
+            case KEY_VALUE:   return visit( (KeyValue) node);
+            case NULL:        return visit( (NullLiteral) node);
+            case NUMBER:      return visit( (NumberLiteral) node);
+            case PLACEHOLDER: return visit( (PlaceholderExpression) node);
+            case STRING:      return visit( (StringLiteral) node);
+            default:
+                throw new RuntimeException("Internal error,unhandled AST node "+node);
+        }
+    }
+
+    protected R visit(BooleanLiteral node) {
+        return identity();
+    }
+
+    protected R visit(JSONArray node) {
+        return identity();
+    }
+
+    protected R visit(JSONObject node) {
+        return identity();
+    }
+
+    protected R visit(KeyValue node) {
+        return identity();
+    }
+
+    protected R visit(NullLiteral node) {
+        return identity();
+    }
+
+    protected R visit(NumberLiteral node) {
+        return identity();
+    }
+
+    protected R visit(PlaceholderExpression node) {
+        return identity();
+    }
+
+    protected R visit(StringLiteral node) {
+        return identity();
+    }
+
+    @SuppressWarnings("serial")
+    private final class SubtreeTask extends RecursiveTask<R> 
+    {
+        private final ASTNode node;
+
+        public SubtreeTask(ASTNode node) {
+            this.node = node;
+        }
+
+        @Override
+        protected R compute() {
+            return visitSubtree( node );
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class ChildrenTask extends RecursiveTask<R> 
+    {
+        private final ASTNode parent;
+        private final int from;
+        private final int to;
+
+        public ChildrenTask(ASTNode parent,int from,int to)
+        {
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected R compute()
+        {
+            // containers reaching the threshold get split at least once
+            if ( to - from <= Math.max( 1 , threshold / 2 ) ) {
+                return visitChildren( parent , from , to );
+            }
+            final int mid = ( from + to ) >>> 1;
+            final ChildrenTask left = new ChildrenTask( parent , from , mid );
+            left.fork();
+            final R right = new ChildrenTask( parent , mid , to ).compute();
+            return merge( left.join() , right );
+        }
+    }
+}
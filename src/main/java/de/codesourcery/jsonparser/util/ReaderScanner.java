@@ -0,0 +1,192 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+import de.codesourcery.jsonparser.IScanner;
+
+/**
+ * Scanner that pulls characters from a {@link Reader} through a fixed-size buffer.
+ *
+ * Only the last <code>lookBehind</code> characters before the current offset
+ * are retained once the buffer needs to be refilled, so {@link #setOffset(int)} can
+ * only rewind within that window.
+ */
+public class ReaderScanner implements IScanner, Closeable
+{
+    public static final int DEFAULT_BUFFER_SIZE = 16*1024;
+    public static final int DEFAULT_LOOK_BEHIND = 4*1024;
+
+    private Reader reader;
+    private final char[] buffer;
+    private final int lookBehind;
+
+    // absolute offset of buffer[0]
+    private int bufferStart;
+    // number of valid characters in buffer
+    private int bufferLen;
+    // absolute offset of the current character
+    private int index;
+    private boolean readerEOF;
+
+    public ReaderScanner(InputStream in,Charset charset)
+    {
+        this( new InputStreamReader( in , charset ) );
+    }
+
+    public ReaderScanner(Reader reader)
+    {
+        this(reader,DEFAULT_BUFFER_SIZE,DEFAULT_LOOK_BEHIND);
+    }
+
+    public ReaderScanner(Reader reader,int bufferSize,int lookBehind)
+    {
+        if ( reader == null ) {
+            throw new IllegalArgumentException("Reader must not be NULL");
+        }
+        if ( lookBehind < 0 || bufferSize <= lookBehind ) {
+            throw new IllegalArgumentException("Buffer size ("+bufferSize+") must be larger than look-behind ("+lookBehind+")");
+        }
+        this.reader = reader;
+        this.buffer = new char[ bufferSize ];
+        this.lookBehind = lookBehind;
+    }
+
+    /**
+     * Resets this scanner to read from another reader, reusing the buffer.
+     */
+    public void reset(Reader reader) 
+    {
+        if ( reader == null ) {
+            throw new IllegalArgumentException("Reader must not be NULL");
+        }
+        this.reader = reader;
+        this.bufferStart = 0;
+        this.bufferLen = 0;
+        this.index = 0;
+        this.readerEOF = false;
+    }
+
+    /**
+     * Drops the reference to the current reader, the buffer is kept for reuse by {@link #reset(Reader)}.
+     */
+    public void release() {
+        this.reader = null;
+    }
+
+    private boolean fill()
+    {
+        int pos = index - bufferStart;
+        while ( pos >= bufferLen )
+        {
+            if ( readerEOF ) {
+                return false;
+            }
+            if ( bufferLen == buffer.length )
+            {
+                // discard everything outside of the look-behind window
+                final int discard = pos - Math.min( lookBehind , pos );
+                System.arraycopy( buffer , discard , buffer , 0 , bufferLen - discard );
+                bufferStart += discard;
+                bufferLen -= discard;
+                pos -= discard;
+            }
+            final int read;
+            try {
+                read = reader.read( buffer , bufferLen , buffer.length - bufferLen );
+            } 
+            catch (IOException e) {
+                throw new UncheckedIOException( e );
+            }
+            if ( read == -1 ) {
+                readerEOF = true;
+            } else {
+                bufferLen += read;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public char peek()
+    {
+        if ( eof() ) {
+            throw new IllegalStateException("Already at eof");
+        }
+        return buffer[ index - bufferStart ];
+    }
+
+    @Override
+    public boolean eof()
+    {
+        return ! fill();
+    }
+
+    @Override
+    public int offset()
+    {
+        return index;
+    }
+
+    @Override
+    public char next()
+    {
+        if ( eof() ) {
+            throw new IllegalStateException("Already at eof");
+        }
+        return buffer[ index++ - bufferStart ];
+    }
+
+    @Override
+    public void setOffset(int offset)
+    {
+        if ( offset < bufferStart || offset > bufferStart + bufferLen ) {
+            throw new IllegalArgumentException("Offset "+offset+" is outside of the buffered range "+bufferStart+"-"+(bufferStart+bufferLen));
+        }
+        this.index = offset;
+    }
+
+    @Override
+    public void readUntil(char delimiter1, char delimiter2, StringBuilder out)
+    {
+        while ( fill() ) 
+        {
+            final int startPos = index - bufferStart;
+            int pos = startPos;
+            while ( pos < bufferLen && buffer[pos] != delimiter1 && buffer[pos] != delimiter2 ) {
+                pos++;
+            }
+            out.append( buffer , startPos , pos - startPos );
+            index += pos - startPos;
+            if ( pos < bufferLen ) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        reader.close();
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+/**
+ * Bounded cache that maps character sequences to shared {@link String} instances.
+ * 
+ * The pool is a direct-mapped table: each sequence hashes to exactly one slot and a
+ * miss replaces the slot's previous string, so memory use is bounded by the capacity
+ * and no eviction bookkeeping is needed. 
+ * 
+ * Instances are thread-safe and may be shared by parsers running concurrently, 
+ * concurrent updates of the same slot can only cause additional misses.
+ */
+public final class StringPool
+{
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int DEFAULT_MAX_LENGTH = 32;
+
+    private final String[] strings;
+    private final int mask;
+    private final int maxLength;
+
+    public StringPool() {
+        this( DEFAULT_CAPACITY , DEFAULT_MAX_LENGTH );
+    }
+
+    /**
+     * @param capacity number of slots, rounded up to the next power of two 
+     * @param maxLength sequences longer than this are never pooled
+     */
+    public StringPool(int capacity,int maxLength)
+    {
+        if ( capacity < 1 || capacity > 1<<30 ) {
+            throw new IllegalArgumentException("Capacity must be in range [1,2^30]");
+        }
+        if ( maxLength < 0 ) {
+            throw new IllegalArgumentException("Max. length must be >= 0");
+        }
+        final int size = Integer.highestOneBit( capacity ) == capacity ? capacity : Integer.highestOneBit( capacity ) << 1;
+        this.strings = new String[ size ];
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns a string with the same characters as the given sequence, 
+     * reusing a previously returned instance if possible.
+     */
+    public String get(CharSequence s) 
+    {
+        final int len = s.length();
+        if ( len > maxLength ) {
+            return s.toString();
+        }
+        // same hash function as String#hashCode() so cached strings can be checked cheaply
+        int hash = 0;
+        for ( int i = 0 ; i < len ; i++ ) {
+            hash = 31 * hash + s.charAt( i );
+        }
+        final int slot = ( hash ^ ( hash >>> 16 ) ) & mask;
+        final String existing = strings[ slot ];
+        if ( existing != null && existing.hashCode() == hash && contentEquals( existing , s , len ) ) {
+            return existing;
+        }
+        final String result = s.toString();
+        strings[ slot ] = result;
+        return result;
+    }
+
+    private static boolean contentEquals(String existing,CharSequence s,int len) 
+    {
+        if ( existing.length() != len ) {
+            return false;
+        }
+        for ( int i = 0 ; i < len ; i++ ) 
+        {
+            if ( existing.charAt( i ) != s.charAt( i ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+}
@@ -19,12 +19,36 @@ import de.codesourcery.jsonparser.IScanner;
 
 public class StringScanner implements IScanner
 {
-    private final String value;
+    private CharSequence value;
     private int index;
+    private int end;
     
     public StringScanner(String value)
     {
+        this( value , 0 , value.length() );
+    }
+
+    /**
+     * Creates a scanner for a region of a character sequence.
+     * 
+     * Offsets are relative to the start of the character sequence, not to the start of the region.
+     */
+    public StringScanner(CharSequence value,int offset,int length)
+    {
+        reset( value , offset , length );
+    }
+
+    /**
+     * Resets this scanner to scan a region of another character sequence.
+     */
+    public void reset(CharSequence value,int offset,int length) 
+    {
+        if ( offset < 0 || length < 0 || offset + length > value.length() ) {
+            throw new IndexOutOfBoundsException("Region "+offset+"+"+length+" is out of bounds for length "+value.length());
+        }
         this.value = value;
+        this.index = offset;
+        this.end = offset + length;
     }
 
     @Override
@@ -39,7 +63,7 @@ public class StringScanner implements IScanner
     @Override
     public boolean eof()
     {
-        return index >= value.length();
+        return index >= end;
     }
 
     @Override
@@ -62,4 +86,33 @@ public class StringScanner implements IScanner
     {
         this.index = offset;
     }
+
+    @Override
+    public void readUntil(char delimiter1, char delimiter2, StringBuilder buffer)
+    {
+        int pos = index;
+        for ( ; pos < end ; pos++ ) 
+        {
+            final char c = value.charAt( pos );
+            if ( c == delimiter1 || c == delimiter2 ) {
+                break;
+            }
+        }
+        buffer.append( value , index , pos );
+        index = pos;
+    }
+
+    @Override
+    public void skipUntil(char delimiter1, char delimiter2)
+    {
+        int pos = index;
+        for ( ; pos < end ; pos++ ) 
+        {
+            final char c = value.charAt( pos );
+            if ( c == delimiter1 || c == delimiter2 ) {
+                break;
+            }
+        }
+        index = pos;
+    }
 }
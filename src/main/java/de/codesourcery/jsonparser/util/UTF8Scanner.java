@@ -0,0 +1,211 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import de.codesourcery.jsonparser.IScanner;
+
+/**
+ * Scanner that decodes UTF-8 encoded bytes on the fly, without copying
+ * them onto the heap first.
+ *
+ * Offsets are byte offsets relative to the buffer's position at construction time. Characters
+ * outside of the BMP are returned as surrogate pairs, the low surrogate is reported
+ * at the offset of the code point plus one.
+ */
+public class UTF8Scanner implements IScanner
+{
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+
+    // byte offset of the current code point, relative to start
+    private int index;
+    // whether we're returning the low surrogate of a supplementary code point
+    private boolean inLowSurrogate;
+
+    // last decoded code point
+    private int decodedIndex = -1;
+    private int codePoint;
+    private int codePointLen;
+
+    public UTF8Scanner(ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+        this.start = buffer.position();
+        this.end = buffer.limit() - start;
+        // skip byte-order mark
+        if ( end >= 3 && byteAt(0) == 0xef && byteAt(1) == 0xbb && byteAt(2) == 0xbf ) {
+            index = 3;
+        }
+    }
+
+    /**
+     * Memory-maps a file channel (read-only) and returns a scanner for it.
+     *
+     * @throws IOException if mapping fails or the file is larger than 2 GB
+     */
+    public static UTF8Scanner map(FileChannel channel) throws IOException
+    {
+        final long size = channel.size();
+        if ( size > Integer.MAX_VALUE ) {
+            throw new IOException("File too large to be mapped ("+size+" bytes)");
+        }
+        return new UTF8Scanner( channel.map( FileChannel.MapMode.READ_ONLY , 0 , size ) );
+    }
+
+    private int byteAt(int offset) {
+        return buffer.get( start + offset ) & 0xff;
+    }
+
+    private int continuationByte(int offset)
+    {
+        if ( offset >= end ) {
+            throw new MyParseException("Truncated UTF-8 sequence",index);
+        }
+        final int b = byteAt( offset );
+        if ( (b & 0xc0) != 0x80 ) {
+            throw new MyParseException("Malformed UTF-8 sequence",index);
+        }
+        return b & 0x3f;
+    }
+
+    private void decode()
+    {
+        if ( decodedIndex == index ) {
+            return;
+        }
+        final int b0 = byteAt( index );
+        final int cp;
+        final int len;
+        if ( b0 < 0x80 ) {
+            cp = b0;
+            len = 1;
+        } 
+        else if ( (b0 & 0xe0) == 0xc0 ) 
+        {
+            cp = (b0 & 0x1f) << 6 | continuationByte( index+1 );
+            len = 2;
+            if ( cp < 0x80 ) {
+                throw new MyParseException("Overlong UTF-8 sequence",index);
+            }
+        } 
+        else if ( (b0 & 0xf0) == 0xe0 ) 
+        {
+            cp = (b0 & 0x0f) << 12 | continuationByte( index+1 ) << 6 | continuationByte( index+2 );
+            len = 3;
+            if ( cp < 0x800 || Character.isSurrogate( (char) cp ) ) {
+                throw new MyParseException("Malformed UTF-8 sequence",index);
+            }
+        } 
+        else if ( (b0 & 0xf8) == 0xf0 ) 
+        {
+            cp = (b0 & 0x07) << 18 | continuationByte( index+1 ) << 12 | continuationByte( index+2 ) << 6 | continuationByte( index+3 );
+            len = 4;
+            if ( cp < 0x10000 || cp > Character.MAX_CODE_POINT ) {
+                throw new MyParseException("Malformed UTF-8 sequence",index);
+            }
+        } else {
+            throw new MyParseException("Malformed UTF-8 sequence",index);
+        }
+        decodedIndex = index;
+        codePoint = cp;
+        codePointLen = len;
+    }
+
+    @Override
+    public char peek()
+    {
+        if ( eof() ) {
+            throw new IllegalStateException("Already at eof");
+        }
+        decode();
+        if ( codePointLen < 4 ) {
+            return (char) codePoint;
+        }
+        return inLowSurrogate ? Character.lowSurrogate( codePoint ) : Character.highSurrogate( codePoint );
+    }
+
+    @Override
+    public boolean eof()
+    {
+        return index >= end;
+    }
+
+    @Override
+    public int offset()
+    {
+        return inLowSurrogate ? index+1 : index;
+    }
+
+    @Override
+    public char next()
+    {
+        final char result = peek();
+        if ( codePointLen == 4 && ! inLowSurrogate ) {
+            inLowSurrogate = true;
+        } else {
+            inLowSurrogate = false;
+            index += codePointLen;
+        }
+        return result;
+    }
+
+    @Override
+    public void readUntil(char delimiter1, char delimiter2, StringBuilder out)
+    {
+        while ( ! eof() ) 
+        {
+            // fast path for ASCII
+            int b;
+            while ( ! inLowSurrogate && index < end && (b = byteAt( index ) ) < 0x80 ) 
+            {
+                if ( b == delimiter1 || b == delimiter2 ) {
+                    return;
+                }
+                out.append( (char) b );
+                index++;
+            }
+            if ( eof() ) {
+                return;
+            }
+            final char c = peek();
+            if ( c == delimiter1 || c == delimiter2 ) {
+                return;
+            }
+            out.append( next() );
+        }
+    }
+
+    @Override
+    public void setOffset(int offset)
+    {
+        if ( offset < 0 || offset > end ) {
+            throw new IllegalArgumentException("Offset "+offset+" is out of range 0-"+end);
+        }
+        // offset of a low surrogate points to the second byte of a 4-byte sequence
+        if ( offset > 0 && offset < end && (byteAt( offset-1 ) & 0xf8) == 0xf0 ) {
+            this.index = offset-1;
+            this.inLowSurrogate = true;
+        } else {
+            this.index = offset;
+            this.inLowSurrogate = false;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import de.codesourcery.jsonparser.Identifier;
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.BooleanLiteral;
+import de.codesourcery.jsonparser.ast.JSONArray;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NullLiteral;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.PlaceholderExpression;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+
+/**
+ * Serializes an AST as compact JSON directly into UTF-8 encoded bytes.
+ * 
+ * Output is written to an internal buffer that is reused by subsequent calls, 
+ * use {@link #toByteArray()}, {@link #asByteBuffer()} or {@link #writeTo(OutputStream)} to 
+ * get at the result.
+ * 
+ * String values are written like {@link ASTPrinter} does: valid escape sequences contained in the value are copied as-is, 
+ * other backslashes, unescaped double quotes and control characters are escaped. Placeholders are resolved the
+ * same way as well.
+ * 
+ * Instances are not thread-safe.
+ */
+public class UTF8Serializer extends ASTVisitor
+{
+    // value written after a backslash, 0 if the character needs no escaping
+    private static final byte[] ESCAPES = new byte[128];
+
+    // marks a backslash, valid escape sequences are copied as-is
+    private static final byte VERBATIM = -1;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes( StandardCharsets.US_ASCII );
+    private static final byte[] TRUE = "true".getBytes( StandardCharsets.US_ASCII );
+    private static final byte[] FALSE = "false".getBytes( StandardCharsets.US_ASCII );
+    private static final byte[] NULL = "null".getBytes( StandardCharsets.US_ASCII );
+
+    static 
+    {
+        for ( int c = 0 ; c < 0x20 ; c++ ) {
+            ESCAPES[c] = 'u';
+        }
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = VERBATIM;
+    }
+
+    private byte[] buffer = new byte[8192];
+    private int size;
+
+    private final StringBuilder numberBuffer = new StringBuilder();
+    private Function<Identifier,String> placeholderResolver;
+
+    public void serialize(ASTNode node) {
+        serialize(node,null);
+    }
+
+    /**
+     * Serializes a tree, replacing the contents of the output buffer.
+     */
+    public void serialize(ASTNode node,Function<Identifier,String> placeholderResolver) 
+    {
+        this.placeholderResolver = placeholderResolver == null ? id -> null : placeholderResolver;
+        size = 0;
+        super.visit( node );
+    }
+
+    /**
+     * Returns the number of bytes written by the last call to {@link #serialize(ASTNode, Function)}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of the output.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf( buffer , size );
+    }
+
+    /**
+     * Returns a read-only view of the output, only valid until the next call to {@link #serialize(ASTNode, Function)}.
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap( buffer , 0 , size ).asReadOnlyBuffer();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write( buffer , 0 , size );
+    }
+
+    private void ensureCapacity(int capacity) 
+    {
+        if ( capacity > buffer.length ) {
+            buffer = Arrays.copyOf( buffer , Math.max( capacity , buffer.length * 2 ) );
+        }
+    }
+
+    private void write(char c) 
+    {
+        ensureCapacity( size + 1 );
+        buffer[ size++ ] = (byte) c;
+    }
+
+    private void write(byte[] bytes) 
+    {
+        ensureCapacity( size + bytes.length );
+        System.arraycopy( bytes , 0 , buffer , size , bytes.length );
+        size += bytes.length;
+    }
+
+    /**
+     * Writes a string's contents, escaping characters where necessary.
+     */
+    private void writeEscaped(CharSequence s) 
+    {
+        final int len = s.length();
+        // worst case is a \\u00XX escape for every character
+        ensureCapacity( size + len * 6 );
+        final byte[] buffer = this.buffer;
+        int ptr = size;
+        int i = 0;
+        while ( i < len ) 
+        {
+            char c = s.charAt( i );
+            // copy run of characters that need no escaping
+            while ( c < 128 && ESCAPES[c] == 0 ) 
+            {
+                buffer[ ptr++ ] = (byte) c;
+                if ( ++i == len ) {
+                    size = ptr;
+                    return;
+                }
+                c = s.charAt( i );
+            }
+            if ( c >= 128 ) 
+            {
+                ptr = encode( s , i , ptr );
+                i += Character.isHighSurrogate( c ) && i + 1 < len && Character.isLowSurrogate( s.charAt( i + 1 ) ) ? 2 : 1;
+                continue;
+            }
+            final byte escape = ESCAPES[c];
+            buffer[ ptr++ ] = '\\';
+            if ( escape == VERBATIM ) 
+            {
+                if ( i + 1 < len && EscapeSequences.isEscapeCharacter( s.charAt( i + 1 ) ) ) {
+                    // escape sequences are all ASCII
+                    buffer[ ptr++ ] = (byte) s.charAt( i + 1 );
+                    i += 2;
+                } else {
+                    // dangling or invalid, escape the backslash itself
+                    buffer[ ptr++ ] = '\\';
+                    i++;
+                }
+            } 
+            else 
+            {
+                buffer[ ptr++ ] = escape;
+                if ( escape == 'u' ) 
+                {
+                    buffer[ ptr++ ] = '0';
+                    buffer[ ptr++ ] = '0';
+                    buffer[ ptr++ ] = HEX[ c >> 4 ];
+                    buffer[ ptr++ ] = HEX[ c & 0x0f ];
+                }
+                i++;
+            }
+        }
+        size = ptr;
+    }
+
+    /**
+     * Writes a string without escaping.
+     */
+    private void writeRaw(CharSequence s) 
+    {
+        final int len = s.length();
+        ensureCapacity( size + len * 3 );
+        int ptr = size;
+        for ( int i = 0 ; i < len ; ) 
+        {
+            final char c = s.charAt( i );
+            if ( c < 128 ) 
+            {
+                buffer[ ptr++ ] = (byte) c;
+                i++;
+            } 
+            else 
+            {
+                ptr = encode( s , i , ptr );
+                i += Character.isHighSurrogate( c ) && i + 1 < len && Character.isLowSurrogate( s.charAt( i + 1 ) ) ? 2 : 1;
+            }
+        }
+        size = ptr;
+    }
+
+    /**
+     * UTF-8 encodes the character (or surrogate pair) at the given index, unpaired surrogates
+     * are replaced with '?' like {@link String#getBytes(java.nio.charset.Charset)} does.
+     * 
+     * Expects the buffer to have room for at least 4 bytes.
+     * 
+     * @return buffer offset after the encoded bytes
+     */
+    private int encode(CharSequence s,int index,int ptr) 
+    {
+        final byte[] buffer = this.buffer;
+        final char c = s.charAt( index );
+        if ( c < 0x80 ) {
+            buffer[ ptr++ ] = (byte) c;
+        } 
+        else if ( c < 0x800 ) 
+        {
+            buffer[ ptr++ ] = (byte) ( 0xc0 | ( c >> 6 ) );
+            buffer[ ptr++ ] = (byte) ( 0x80 | ( c & 0x3f ) );
+        } 
+        else if ( Character.isSurrogate( c ) ) 
+        {
+            if ( Character.isHighSurrogate( c ) && index + 1 < s.length() && Character.isLowSurrogate( s.charAt( index + 1 ) ) ) 
+            {
+                final int cp = Character.toCodePoint( c , s.charAt( index + 1 ) );
+                buffer[ ptr++ ] = (byte) ( 0xf0 | ( cp >> 18 ) );
+                buffer[ ptr++ ] = (byte) ( 0x80 | ( ( cp >> 12 ) & 0x3f ) );
+                buffer[ ptr++ ] = (byte) ( 0x80 | ( ( cp >> 6 ) & 0x3f ) );
+                buffer[ ptr++ ] = (byte) ( 0x80 | ( cp & 0x3f ) );
+            } else {
+                buffer[ ptr++ ] = '?';
+            }
+        } 
+        else 
+        {
+            buffer[ ptr++ ] = (byte) ( 0xe0 | ( c >> 12 ) );
+            buffer[ ptr++ ] = (byte) ( 0x80 | ( ( c >> 6 ) & 0x3f ) );
+            buffer[ ptr++ ] = (byte) ( 0x80 | ( c & 0x3f ) );
+        }
+        return ptr;
+    }
+
+    @Override
+    public void visit(BooleanLiteral node) {
+        write( node.value ? TRUE : FALSE );
+    }
+
+    @Override
+    public void visit(JSONArray node)
+    {
+        write( '[' );
+        for ( int i = 0 , len = node.childCount() ; i < len ; i++ ) 
+        {
+            if ( i > 0 ) {
+                write( ',' );
+            }
+            visit( node.child( i ) );
+        }
+        write( ']' );
+    }
+
+    @Override
+    public void visit(JSONObject node)
+    {
+        write( '{' );
+        for ( int i = 0 , len = node.childCount() ; i < len ; i++ ) 
+        {
+            if ( i > 0 ) {
+                write( ',' );
+            }
+            visit( node.child( i ) );
+        }
+        write( '}' );
+    }
+
+    @Override
+    public void visit(KeyValue node)
+    {
+        visit( node.key() );
+        write( ':' );
+        visit( node.value() );
+    }
+
+    @Override
+    public void visit(NullLiteral node) {
+        write( NULL );
+    }
+
+    @Override
+    public void visit(NumberLiteral node)
+    {
+        numberBuffer.setLength( 0 );
+        node.appendTo( numberBuffer );
+        writeRaw( numberBuffer );
+    }
+
+    @Override
+    public void visit(PlaceholderExpression node)
+    {
+        final String resolved = placeholderResolver.apply( node.name );
+        if ( resolved == null ) 
+        {
+            write( '$' );
+            write( '{' );
+            writeRaw( node.name.name );
+            write( '}' );
+        } else {
+            writeRaw( resolved );
+        }
+    }
+
+    @Override
+    public void visit(StringLiteral node)
+    {
+        write( '"' );
+        writeEscaped( node.getSubstitutedValue( placeholderResolver ) );
+        write( '"' );
+    }
+}
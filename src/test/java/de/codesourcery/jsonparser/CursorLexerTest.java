@@ -0,0 +1,137 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.Token.TokenType;
+import de.codesourcery.jsonparser.util.MyParseException;
+import de.codesourcery.jsonparser.util.ReaderScanner;
+import de.codesourcery.jsonparser.util.StringScanner;
+
+public class CursorLexerTest
+{
+    private static String readString(IScanner scanner,boolean supportsPlaceholders) 
+    {
+        final CursorLexer lexer = new CursorLexer( scanner );
+        final StringBuilder buffer = new StringBuilder();
+        lexer.readString( buffer , supportsPlaceholders );
+        return buffer.toString();
+    }
+
+    private static void readStringFails(String input,int offset) 
+    {
+        // both with and without a buffer
+        for ( StringBuilder buffer : new StringBuilder[] { new StringBuilder() , null } ) 
+        {
+            try {
+                new CursorLexer( new StringScanner( input ) ).readString( buffer , true );
+                fail("Should've failed: "+input);
+            } catch(MyParseException e) {
+                Assert.assertEquals( offset , e.offset );
+            }
+        }
+    }
+
+    @Test
+    public void testReadString() 
+    {
+        final CursorLexer lexer = new CursorLexer( new StringScanner( "\"abc\":1" ) );
+        Assert.assertEquals( TokenType.DOUBLE_QUOTE , lexer.type() );
+        final StringBuilder buffer = new StringBuilder();
+        Assert.assertEquals( 4 , lexer.readString( buffer , true ) );
+        Assert.assertEquals( "abc" , buffer.toString() );
+        Assert.assertEquals( TokenType.COLON , lexer.type() );
+
+        Assert.assertEquals( "" , readString( new StringScanner( "\"\"" ) , true ) );
+        final CursorLexer skipping = new CursorLexer( new StringScanner( "\"a\\nb\",2" ) );
+        Assert.assertEquals( 5 , skipping.readString( null , true ) );
+        Assert.assertEquals( TokenType.COMMA , skipping.type() );
+    }
+
+    @Test
+    public void testEscapes() 
+    {
+        // escapes are kept as they are, except for the placeholder escape
+        Assert.assertEquals( "a\\\"b\\\\c\\/\\b\\f\\n\\r\\t" , readString( new StringScanner( "\"a\\\"b\\\\c\\/\\b\\f\\n\\r\\t\"" ) , true ) );
+        Assert.assertEquals( "\\u00e4\\uBEEF" , readString( new StringScanner( "\"\\u00e4\\uBEEF\"" ) , true ) );
+        Assert.assertEquals( "x$y" , readString( new StringScanner( "\"x\\$y\"" ) , true ) );
+        try {
+            readString( new StringScanner( "\"x\\$y\"" ) , false );
+            fail("Should've failed");
+        } catch(MyParseException e) {
+            Assert.assertEquals( 3 , e.offset );
+        }
+        readStringFails( "\"a\\x\"" , 3 );
+        readStringFails( "\"\\u12\"" , 5 );
+        readStringFails( "\"\\u12x4\"" , 5 );
+    }
+
+    @Test
+    public void testUnterminated() 
+    {
+        readStringFails( "\"abc" , 4 );
+        readStringFails( "\"abc\\" , 5 );
+        readStringFails( "\"abc\\n" , 6 );
+        readStringFails( "\"\\u12" , 5 );
+    }
+
+    @Test
+    public void testBufferBoundaries() 
+    {
+        // escapes and delimiters at every position relative to the scanner's buffer
+        final StringBuilder expected = new StringBuilder();
+        for ( int i = 0 ; i < 100 ; i++ ) {
+            expected.append( (char) ( 'a' + i % 26 ) ).append( i % 3 == 0 ? "\\n" : "" ).append( i % 7 == 0 ? "\\u20ac" : "" );
+        }
+        final String input = "\"" + expected + "\"";
+        for ( int bufferSize = 8 ; bufferSize <= 16 ; bufferSize++ ) 
+        {
+            Assert.assertEquals( expected.toString() , readString( new ReaderScanner( new StringReader( input ) , bufferSize , 4 ) , true ) );
+            try {
+                readString( new ReaderScanner( new StringReader( input.substring( 0 , input.length() - 1 ) ) , bufferSize , 4 ) , true );
+                fail("Should've failed");
+            } catch(MyParseException e) {
+                Assert.assertEquals( input.length() - 1 , e.offset );
+            }
+        }
+    }
+
+    @Test
+    public void testReadUntil() 
+    {
+        final String input = "0123456789abcdefghij\"rest";
+        final IScanner[] scanners = { new StringScanner( input ) , new ReaderScanner( new StringReader( input ) , 8 , 4 ) };
+        for ( IScanner scanner : scanners ) 
+        {
+            final StringBuilder buffer = new StringBuilder();
+            scanner.readUntil( '"' , '\\' , buffer );
+            Assert.assertEquals( "0123456789abcdefghij" , buffer.toString() );
+            Assert.assertEquals( 20 , scanner.offset() );
+            Assert.assertEquals( '"' , scanner.next() );
+
+            buffer.setLength( 0 );
+            scanner.readUntil( '"' , '\\' , buffer );
+            Assert.assertEquals( "rest" , buffer.toString() );
+            Assert.assertTrue( scanner.eof() );
+        }
+    }
+}
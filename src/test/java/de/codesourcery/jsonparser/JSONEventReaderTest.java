@@ -0,0 +1,163 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.JSONEventReader.Event;
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.util.ASTPrinter;
+import de.codesourcery.jsonparser.util.MyParseException;
+
+public class JSONEventReaderTest {
+
+    @Test
+    public void testEvents() 
+    {
+        final JSONEventReader reader = new JSONEventReader( "{\"a\":[1,2.5,\"x\"],\"b\":{\"c\":true,\"d\":null},\"e\":${f}}" );
+        final List<Event> events = new ArrayList<>();
+        while ( reader.hasNext() ) {
+            events.add( reader.next() );
+        }
+        Assert.assertArrayEquals( new Event[] {
+                Event.START_OBJECT,
+                Event.KEY, Event.START_ARRAY, Event.NUMBER, Event.NUMBER, Event.STRING, Event.END_ARRAY,
+                Event.KEY, Event.START_OBJECT, Event.KEY, Event.BOOLEAN, Event.KEY, Event.NULL, Event.END_OBJECT,
+                Event.KEY, Event.PLACEHOLDER,
+                Event.END_OBJECT,
+                Event.END_DOCUMENT
+        }, events.toArray() );
+    }
+
+    @Test
+    public void testSkipChildren() 
+    {
+        final JSONEventReader reader = new JSONEventReader( "{\"a\":[1,[2,3],{\"x\":4}],\"b\":{\"c\":[5]},\"d\":42}" );
+        Assert.assertEquals( Event.START_OBJECT , reader.next() );
+        long value = -1;
+        while ( reader.next() == Event.KEY ) 
+        {
+            if ( reader.textEquals( "d" ) ) {
+                reader.next();
+                value = reader.getLong();
+            } else {
+                reader.next();
+                reader.skipChildren();
+            }
+        }
+        Assert.assertEquals( Event.END_OBJECT , reader.getEvent() );
+        Assert.assertEquals( 42 , value );
+        Assert.assertEquals( Event.END_DOCUMENT , reader.next() );
+    }
+
+    @Test
+    public void testSourceText() 
+    {
+        final String json = "{\"a\":\"x\\\"\\$y\\u0041\",\"b\":\"\"}";
+        final JSONEventReader reader = new JSONEventReader( json );
+        reader.setSource( json );
+        Assert.assertEquals( Event.START_OBJECT , reader.next() );
+        Assert.assertEquals( Event.KEY , reader.next() );
+        Assert.assertEquals( "a" , reader.getText() );
+        Assert.assertEquals( Event.STRING , reader.next() );
+        Assert.assertEquals( json.indexOf( 'x' ) , reader.getTextStart() );
+        Assert.assertEquals( json.indexOf( "\",\"b" ) , reader.getTextEnd() );
+        Assert.assertTrue( reader.textEquals( "x\\\"$y\\u0041" ) );
+        Assert.assertEquals( "x\\\"$y\\u0041" , reader.getText() );
+        Assert.assertEquals( Event.KEY , reader.next() );
+        Assert.assertEquals( "b" , reader.getText() );
+        Assert.assertEquals( Event.STRING , reader.next() );
+        Assert.assertEquals( "" , reader.getText() );
+
+        // literals are still validated
+        final String invalid = "{\"a\":\"x\\q\"}";
+        final JSONEventReader reader2 = new JSONEventReader( invalid );
+        reader2.setSource( invalid );
+        reader2.next();
+        reader2.next();
+        try {
+            reader2.next();
+            fail("Should've failed");
+        } catch(MyParseException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testBuildAST() 
+    {
+        final String json = "{\"a\":[1,-2.5e3,\"x\\\\n\"],\"b\":{\"c\":true,\"d\":null},\"e\":${f},\"g\":[]}";
+        final ASTNode ast = new ASTBuilder().build( new JSONEventReader( json ) );
+        final ASTPrinter printer = new ASTPrinter();
+        printer.setPrettyPrint( false );
+        Assert.assertEquals( json , printer.print( ast ) );
+    }
+
+    @Test
+    public void testPushParser() 
+    {
+        final StringBuilder out = new StringBuilder();
+        final JSONHandler handler = new JSONHandler() 
+        {
+            protected void startObject() { out.append("{"); }
+            protected void endObject() { out.append("}"); }
+            protected void startArray() { out.append("["); }
+            protected void endArray() { out.append("]"); }
+            protected void keyValue(CharSequence key) { out.append("k:").append(key).append(" "); }
+            protected void stringLiteral(CharSequence value) { out.append("s:").append(value).append(" "); }
+            protected void numberLiteral(long value) { out.append("l:").append(value).append(" "); }
+            protected void numberLiteral(double value,CharSequence text) { out.append("d:").append(value).append(" "); }
+            protected void booleanLiteral(boolean value) { out.append("b:").append(value).append(" "); }
+            protected void nullLiteral() { out.append("null "); }
+            protected void placeholderExpression(CharSequence name) { out.append("p:").append(name).append(" "); }
+        };
+        new PushParser().parse( "{\"a\":[1,2.5,\"x\"],\"b\":{\"c\":true,\"d\":null},\"e\":${f}}" , handler );
+        Assert.assertEquals( "{k:a [l:1 d:2.5 s:x ]k:b {k:c b:true k:d null }k:e p:f }" , out.toString() );
+    }
+
+    @Test
+    public void testFailures() 
+    {
+        fails( "" );
+        fails( "[]" );
+        fails( "{},{}" );
+        fails( "{\"a\":1 \"b\":2}" );
+        fails( "{\"a\":[1,]}" );
+        fails( "{\"a\":[1 2]}" );
+        fails( "{\"a\":1,}" );
+        fails( "{\"a\":{}" );
+    }
+
+    private void fails(String json) 
+    {
+        final JSONEventReader reader = new JSONEventReader( json );
+        try 
+        {
+            while ( reader.hasNext() ) {
+                reader.next();
+            }
+            fail("Should've failed: "+json);
+        } catch(MyParseException e) {
+            // ok
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.util.ASTPrinter;
+
+public class JSONWriterTest
+{
+    @Test
+    public void testWrite() throws IOException 
+    {
+        final StringWriter out = new StringWriter();
+        final JSONWriter writer = new JSONWriter( out );
+        writer.beginObject()
+            .name("a").beginArray().value( 1 ).value( 2.5 ).value( "x\"\\\n\u0001\u00e4" ).value( true ).nullValue().endArray()
+            .name("b").beginObject().endObject()
+            .name("c").beginArray().endArray()
+            .name("d").placeholder( new Identifier("e") )
+            .endObject();
+        Assert.assertTrue( writer.isComplete() );
+        writer.close();
+
+        final String expected = "{\"a\":[1,2.5,\"x\\\"\\\\\\n\\u0001\u00e4\",true,null],\"b\":{},\"c\":[],\"d\":${e}}";
+        Assert.assertEquals( expected , out.toString() );
+        final ASTNode ast = new Parser().parse( out.toString() );
+        final ASTPrinter printer = new ASTPrinter();
+        printer.setPrettyPrint( false );
+        Assert.assertEquals( expected , printer.print( ast ) );
+    }
+
+    @Test
+    public void testLargeOutput() throws IOException 
+    {
+        final StringBuilder out = new StringBuilder();
+        final StringBuilder expected = new StringBuilder("{\"items\":[");
+        final JSONWriter writer = new JSONWriter( out );
+        writer.beginObject().name( "items" ).beginArray();
+        for ( int i = 0 ; i < 10000 ; i++ ) 
+        {
+            writer.value( i );
+            expected.append( i > 0 ? "," : "" ).append( i );
+        }
+        writer.endArray().endObject().flush();
+        Assert.assertEquals( expected.append( "]}" ).toString() , out.toString() );
+    }
+
+    @Test
+    public void testInvalidStructure() throws IOException 
+    {
+        final JSONWriter writer = new JSONWriter( new StringBuilder() );
+        writer.beginObject();
+        try {
+            writer.value( 1 );
+            fail("Should've failed");
+        } catch(IllegalStateException e) {
+            // ok
+        }
+        writer.name( "a" );
+        try {
+            writer.endObject();
+            fail("Should've failed");
+        } catch(IllegalStateException e) {
+            // ok
+        }
+        try {
+            writer.endArray();
+            fail("Should've failed");
+        } catch(IllegalStateException e) {
+            // ok
+        }
+        writer.value( 1 ).endObject();
+        try {
+            writer.beginObject();
+            fail("Should've failed");
+        } catch(IllegalStateException e) {
+            // ok
+        }
+        try {
+            new JSONWriter( new StringBuilder() ).beginArray().close();
+            fail("Should've failed");
+        } catch(IllegalStateException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testSerializer() throws IOException 
+    {
+        final Map<String,Object> map = new LinkedHashMap<>();
+        map.put( "a" , Arrays.asList( 1 , 2L , 2.5 , new BigDecimal( "1.50" ) , new BigInteger( "123456789012345678901234567890" ) ) );
+        map.put( "b" , new int[] { 1 , 2 } );
+        map.put( "c" , new Object[] { "x\\ny\"" , 'c' , true , null } );
+        map.put( "d" , Collections.singletonMap( 42 , new byte[] { 3 } ) );
+        map.put( "e" , new Identifier( "f" ) );
+        Assert.assertEquals( "{\"a\":[1,2,2.5,1.50,123456789012345678901234567890],\"b\":[1,2],\"c\":[\"x\\\\ny\\\"\",\"c\",true,null],\"d\":{\"42\":[3]},\"e\":${f}}" , 
+                JSONSerializer.toJSON( map ) );
+
+        // strings are plain text unless raw output is requested
+        final Map<String,Object> path = Collections.singletonMap( "path" , "C:\\temp\\x.txt" );
+        Assert.assertEquals( "{\"path\":\"C:\\\\temp\\\\x.txt\"}" , JSONSerializer.toJSON( path ) );
+        Assert.assertEquals( "{\"path\":\"C:\\temp\\\\x.txt\"}" , JSONSerializer.toRawJSON( path ) );
+        new Parser().parse( JSONSerializer.toJSON( path ) );
+        new Parser().parse( JSONSerializer.toRawJSON( path ) );
+
+        // round trip through toJavaObject()
+        final String json;
+        try ( InputStream in = getClass().getResourceAsStream( "/skilltree.json" ) ) {
+            json = new String( in.readAllBytes() , StandardCharsets.UTF_8 );
+        }
+        final String serialized = JSONSerializer.toRawJSON( new Parser().parse( json ).toJavaObject() );
+        Assert.assertEquals( serialized , JSONSerializer.toRawJSON( new Parser().parse( serialized ).toJavaObject() ) );
+
+        final Map<String,Object> cyclic = new HashMap<>();
+        cyclic.put( "self" , cyclic );
+        try {
+            JSONSerializer.toJSON( cyclic );
+            fail("Should've failed");
+        } catch(IllegalArgumentException e) {
+            // ok
+        }
+        try {
+            JSONSerializer.toJSON( new Object() );
+            fail("Should've failed");
+        } catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+}
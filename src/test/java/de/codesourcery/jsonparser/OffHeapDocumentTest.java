@@ -0,0 +1,107 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.query.JSONPath;
+import de.codesourcery.jsonparser.util.ASTPrinter;
+import de.codesourcery.jsonparser.util.MyParseException;
+
+public class OffHeapDocumentTest
+{
+    @Test
+    public void testOffHeap() 
+    {
+        final StringBuilder json = new StringBuilder("{\"text\":\"\u00e4\u20ac");
+        for ( int i = 0 ; i < 100 ; i++ ) {
+            json.append( (char) ( 'a' + i % 26 ) );
+        }
+        json.append("\",\"a\":[1,2.5,1.50,123456789012345678901234567890,true,false,null,${y},{}]}");
+        final String expected = new ASTPrinter().print( new Parser().parse( json ) );
+
+        // small chunks so strings span chunk boundaries
+        final OffHeapDocument doc = new TapeBuilder().buildOffHeap( new JSONEventReader( json.toString() ) , 64 );
+        Assert.assertEquals( expected , new ASTPrinter().print( doc.root() ) );
+        final ASTNode array = ((KeyValue) doc.root().child( 1 )).value();
+        Assert.assertEquals( "null" , array.child( 6 ).toString() );
+        Assert.assertEquals( "2.5" , array.child( 1 ).toString() );
+        Assert.assertTrue( doc.allocatedBytes() > 0 );
+
+        doc.close();
+        Assert.assertTrue( doc.isClosed() );
+        Assert.assertEquals( 0 , doc.allocatedBytes() );
+        try {
+            array.child( 0 );
+            fail("Should've failed");
+        } catch(IllegalStateException e) {
+            // ok
+        }
+        try ( OffHeapDocument doc2 = new Parser().parseOffHeap( json ) ) {
+            Assert.assertEquals( expected , new ASTPrinter().print( doc2.root() ) );
+        }
+        try {
+            new Parser().parseOffHeap( "{\"a\":1} x" );
+            fail("Should've failed");
+        } catch(MyParseException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testOffHeapRandomAccess() 
+    {
+        // more members than JSONObject searches linearly, one key spans a chunk boundary
+        final StringBuilder json = new StringBuilder("{");
+        for ( int i = 0 ; i < 20 ; i++ ) {
+            json.append( i > 0 ? "," : "" ).append( "\"key\u00e4" ).append( i ).append( "\":[" ).append( i ).append( ",{\"x\":" ).append( i ).append( "}]" );
+        }
+        json.append( ",\"key\u00e47\":\"dup\"}" );
+        final ASTNode heap = new Parser().parse( json );
+
+        try ( OffHeapDocument doc = new TapeBuilder().buildOffHeap( new JSONEventReader( json.toString() ) , 64 ) ) 
+        {
+            final JSONObject root = (JSONObject) doc.root();
+            Assert.assertEquals( 21 , root.childCount() );
+            for ( int i = 19 ; i >= 0 ; i-- ) 
+            {
+                final String expected = new ASTPrinter().print( ((KeyValue) heap.child( i )).value() );
+                Assert.assertEquals( expected , new ASTPrinter().print( ((KeyValue) root.child( i )).value() ) );
+            }
+            Assert.assertEquals( 0 , root.indexOfKey( "key\u00e40" ) );
+            Assert.assertEquals( 19 , root.indexOfKey( "key\u00e419" ) );
+            Assert.assertEquals( 20 , root.indexOfKey( "key\u00e47" ) );
+            Assert.assertEquals( -1 , root.indexOfKey( "key\u00e420" ) );
+            Assert.assertEquals( -1 , root.indexOfKey( "key" ) );
+            Assert.assertEquals( "12" , root.get( "key\u00e412" ).child( 0 ).toString() );
+
+            final List<ASTNode> expected = JSONPath.compile( "$..*" ).evaluate( heap );
+            final List<ASTNode> actual = JSONPath.compile( "$..*" ).evaluate( root );
+            Assert.assertEquals( expected.size() , actual.size() );
+            for ( int i = 0 ; i < expected.size() ; i++ ) {
+                Assert.assertEquals( new ASTPrinter().print( expected.get( i ) ) , new ASTPrinter().print( actual.get( i ) ) );
+            }
+        }
+    }
+}
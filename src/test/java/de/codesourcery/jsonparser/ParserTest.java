@@ -17,12 +17,24 @@ package de.codesourcery.jsonparser;
 
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.StringLiteral;
 import de.codesourcery.jsonparser.util.ASTPrinter;
 import de.codesourcery.jsonparser.util.MyParseException;
+import de.codesourcery.jsonparser.util.ReaderScanner;
 
 public class ParserTest {
 
@@ -46,11 +58,16 @@ public class ParserTest {
         roundtripFails("{\"a\":x}");
         roundtripFails("{\"a\":1.a}");
         roundtripFails("{\"a\":1.}");
+        roundtripFails("{\"a\":1e}");
+        roundtripFails("{\"a\":-}");
+        roundtripFails("{\"a\":-x}");
         roundtripFails("{\"a\":[}");
         roundtripFails("{\"a\":]}");
         roundtripFails("{\"a\":[x]}");
         roundtripFails("{\"a\":[1,]}");
         roundtripFails("{\"a\":[1,x]}");
+        roundtripFails("{\"a\":[1 2]}");
+        roundtripFails("{\"a\":1 \"b\":2}");
     }
     
     @Test
@@ -70,12 +87,19 @@ public class ParserTest {
         roundtrip("{}");
         roundtrip("{\"a\":\"\"}");
         roundtrip("{\"a\":\"x\"}");
+        roundtrip("{\"a\":\" x y \"}");
+        roundtrip("{\"a\":\" ,x\"}");
         roundtrip("{\"a\":1}");
         roundtrip("{\"a\":-1}");
         roundtrip("{\"a\":-1.5}");
         roundtrip("{\"a\":\"test\"}");
         roundtrip("{\"a\":1.1}");
         roundtrip("{\"a\":12.34}");
+        roundtrip("{\"a\":1e5}");
+        roundtrip("{\"a\":-1.25E-3}");
+        roundtrip("{\"a\":1.50}");
+        roundtrip("{\"a\":-0}");
+        roundtrip("{\"a\":123456789012345678901234567890}");
         roundtrip("{\"a\":true}");
         roundtrip("{\"a\":false}");
         roundtrip("{\"a\":null}");
@@ -100,6 +124,171 @@ public class ParserTest {
         roundtrip("{\"x\":[[1,2],[true,false],{\"a\":\"b\"}]}");
     }
     
+    @Test
+    public void testNumbers() 
+    {
+        final JSONObject ast = (JSONObject) new Parser().parse( "{\"a\":3879.1,\"b\":-12345678901,\"c\":42,\"d\":123456789012345678901234567890,\"e\":2.5e-3}" );
+        final NumberLiteral a = (NumberLiteral) ((KeyValue) ast.child(0)).value();
+        final NumberLiteral b = (NumberLiteral) ((KeyValue) ast.child(1)).value();
+        final NumberLiteral c = (NumberLiteral) ((KeyValue) ast.child(2)).value();
+        final NumberLiteral d = (NumberLiteral) ((KeyValue) ast.child(3)).value();
+        final NumberLiteral e = (NumberLiteral) ((KeyValue) ast.child(4)).value();
+
+        Assert.assertFalse( a.isIntegral() );
+        Assert.assertEquals( 3879.1 , a.doubleValue() , 0 );
+        Assert.assertEquals( -12345678901L , b.longValue() );
+        Assert.assertFalse( b.isInt() );
+        Assert.assertEquals( 42 , c.intValue() );
+        Assert.assertEquals( Integer.valueOf( 42 ) , c.toNumber() );
+        Assert.assertTrue( d.isIntegral() );
+        Assert.assertFalse( d.isLong() );
+        Assert.assertEquals( new BigDecimal("123456789012345678901234567890") , d.bigDecimalValue() );
+        Assert.assertEquals( 0.0025 , e.doubleValue() , 0 );
+    }
+
+    @Test
+    public void testReuse() 
+    {
+        final JSONParsers parsers = new JSONParsers();
+        final ASTPrinter printer = new ASTPrinter();
+        printer.setPrettyPrint( false );
+
+        final String input = "xxx{\"a\":[1,2]}yyy";
+        Assert.assertEquals( "{\"a\":[1,2]}" , printer.print( parsers.parse( input , 3 , input.length() - 6 ) ) );
+        try {
+            parsers.parse( "{\"a\":[1,2}" );
+            fail("Should've failed");
+        } catch(MyParseException e) {
+            Assert.assertEquals( 9 , e.offset );
+        }
+        Assert.assertSame( parsers.get() , parsers.get() );
+        Assert.assertEquals( "{\"b\":true}" , printer.print( parsers.parse( new StringBuilder("{\"b\":true}") ) ) );
+    }
+
+    @Test
+    public void testMaxDepth() 
+    {
+        final int depth = 100000;
+        final StringBuilder json = new StringBuilder("{\"a\":");
+        for ( int i = 0 ; i < depth ; i++ ) {
+            json.append('[');
+        }
+        for ( int i = 0 ; i < depth ; i++ ) {
+            json.append(']');
+        }
+        json.append('}');
+
+        roundtripFails( json.toString() );
+
+        final Parser p = new Parser();
+        p.setMaxDepth( depth + 1 );
+        ASTNode node = ((KeyValue) p.parse( json.toString() ).child( 0 )).value();
+        int actualDepth = 0;
+        while ( node.hasChildren() ) {
+            node = node.child( 0 );
+            actualDepth++;
+        }
+        Assert.assertEquals( depth - 1 , actualDepth );
+    }
+
+    @Test
+    public void testStringSlices() 
+    {
+        final ASTNode ast = new Parser().parse( "{\"a\":\"x\\$y\\\\$\\\"z\",\"b\":\"plain\"}" );
+        final StringLiteral a = (StringLiteral) ((KeyValue) ast.child( 0 )).value();
+        final StringLiteral b = (StringLiteral) ((KeyValue) ast.child( 1 )).value();
+        Assert.assertTrue( a.rawEquals( "x$y\\\\$\\\"z" ) );
+        Assert.assertFalse( a.rawEquals( "x\\$y\\\\$\\\"z" ) );
+        Assert.assertFalse( a.rawEquals( "x$y" ) );
+        Assert.assertTrue( b.rawEquals( "plain" ) );
+        Assert.assertFalse( b.rawEquals( "plains" ) );
+        Assert.assertEquals( "x$y\\\\$\\\"z" , a.getValue() );
+        Assert.assertEquals( "plain" , b.getValue() );
+        Assert.assertTrue( a.rawEquals( "x$y\\\\$\\\"z" ) );
+    }
+
+    @Test
+    public void testParserReuse() 
+    {
+        final Parser parser = new Parser();
+        for ( int i = 0 ; i < 3 ; i++ ) 
+        {
+            Assert.assertEquals( 1 , parser.parse( "{\"a\":1}" ).childCount() );
+            Assert.assertEquals( 2 , parser.parse( new StringReader( "{\"a\":1,\"b\":2}" ) ).childCount() );
+            Assert.assertEquals( 1 , parser.parseTape( "{\"a\":[1]}" ).root().childCount() );
+            try {
+                parser.parse( i == 0 ? "x" : "{\"a\":" );
+                fail("Should've failed");
+            } catch(MyParseException e) {
+                // ok
+            }
+        }
+    }
+
+    @Test
+    public void testParserReuseAfterLargeInput() 
+    {
+        // grows the recycled buffers beyond what is retained after parsing
+        final StringBuilder json = new StringBuilder("{\"a\":\"");
+        for ( int i = 0 ; i < 2 * Parser.MAX_RETAINED_CAPACITY ; i++ ) {
+            json.append( (char) ( 'a' + i % 26 ) );
+        }
+        json.append( "\",\"b\":1" );
+        for ( int i = 0 ; i < 2 * Parser.MAX_RETAINED_CAPACITY ; i++ ) {
+            json.append( '0' );
+        }
+        json.append( "}" );
+        final String large = json.toString();
+
+        final Parser parser = new Parser();
+        final ASTPrinter printer = new ASTPrinter();
+        printer.setPrettyPrint( false );
+        for ( int i = 0 ; i < 2 ; i++ ) 
+        {
+            Assert.assertEquals( large , printer.print( parser.parse( large ) ) );
+            Assert.assertEquals( "{\"x\":[12,\"y\"]}" , printer.print( parser.parse( "{\"x\":[12,\"y\"]}" ) ) );
+            Assert.assertEquals( large , printer.print( parser.parseTape( large ).root() ) );
+            Assert.assertEquals( "{\"x\":[12,\"y\"]}" , printer.print( parser.parseTape( "{\"x\":[12,\"y\"]}" ).root() ) );
+        }
+    }
+
+    @Test
+    public void testReaderScanner() 
+    {
+        final StringBuilder json = new StringBuilder("{\"x\":[");
+        for ( int i = 0 ; i < 200 ; i++ ) {
+            if ( i > 0 ) {
+                json.append(",");
+            }
+            json.append("{\"a\":\"some text ").append(i).append("\",\"b\":-").append(i).append(".5}");
+        }
+        json.append("]}");
+        final String s = json.toString();
+
+        final ReaderScanner scanner = new ReaderScanner( new StringReader( s ) , 32 , 16 );
+        final ASTNode ast = new Parser().parse( new Lexer( scanner ) );
+        final ASTPrinter printer = new ASTPrinter();
+        printer.setPrettyPrint( false );
+        Assert.assertEquals( s , printer.print( ast ) );
+    }
+
+    @Test
+    public void testMappedFile() throws IOException
+    {
+        final String s = "{\"a\":\"gr\u00fc\u00dfe \u20ac \ud83d\ude00\",\"b\":[1,-2.5,\"\u00e4\"]}";
+        final Path file = Files.createTempFile( "jsonparser" , ".json" );
+        try 
+        {
+            Files.write( file , s.getBytes( StandardCharsets.UTF_8 ) );
+            final ASTNode ast = new Parser().parse( file );
+            final ASTPrinter printer = new ASTPrinter();
+            printer.setPrettyPrint( false );
+            Assert.assertEquals( s , printer.print( ast ) );
+        } finally {
+            Files.delete( file );
+        }
+    }
+
     private void roundtripFails(String s) 
     {
         try {
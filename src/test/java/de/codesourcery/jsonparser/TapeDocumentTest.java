@@ -0,0 +1,100 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser;
+
+import static org.junit.Assert.fail;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.PlaceholderExpression;
+import de.codesourcery.jsonparser.util.ASTPrinter;
+import de.codesourcery.jsonparser.util.MyParseException;
+
+public class TapeDocumentTest
+{
+    @Test
+    public void testTape() 
+    {
+        final String json = "{\"a\":[1,2.5,\"x\",true,null,${y}],\"b\":{\"c\":1.50,\"d\":123456789012345678901234567890},\"e\":{}}";
+        final TapeDocument doc = new Parser().parseTape( json );
+        final ASTNode root = doc.root();
+        Assert.assertSame( root , doc.root() );
+        Assert.assertEquals( 3 , root.childCount() );
+        Assert.assertSame( root.child( 1 ) , root.child( 1 ) );
+        Assert.assertTrue( root.isLastChild( root.child( 2 ) ) );
+
+        final KeyValue a = (KeyValue) root.child( 0 );
+        Assert.assertEquals( "a" , a.key().getValue() );
+        Assert.assertEquals( 6 , a.value().childCount() );
+        Assert.assertEquals( 2.5 , ((NumberLiteral) a.value().child( 1 )).doubleValue() , 0 );
+        Assert.assertEquals( "y" , ((PlaceholderExpression) a.value().child( 5 )).name.name );
+
+        final ASTNode b = ((KeyValue) root.child( 1 )).value();
+        Assert.assertEquals( "1.50" , ((NumberLiteral) ((KeyValue) b.child( 0 )).value()).toString() );
+        Assert.assertEquals( ((KeyValue) new Parser().parse( json ).child( 1 )).value().toJavaObject() , b.toJavaObject() );
+        try {
+            root.child( 3 );
+            fail("Should've failed");
+        } catch(IndexOutOfBoundsException e) {
+            // ok
+        }
+        try {
+            new Parser().parseTape( "{\"a\":[1,2}" );
+            fail("Should've failed");
+        } catch(MyParseException e) {
+            Assert.assertEquals( 9 , e.offset );
+        }
+    }
+
+    @Test
+    public void testRoundtrip() 
+    {
+        roundtrip("{}");
+        roundtrip("{\"x\":\"\\\"\\u1234\\/\\b\\f\\n\\r\\t\"}");
+        roundtrip("{\"a\":\" ,x\",\"b\":\"\"}");
+        roundtrip("{\"a\":-1.25E-3,\"b\":1.50,\"c\":-0,\"d\":123456789012345678901234567890}");
+        roundtrip("{\"a\":true,\"b\":false,\"c\":null}");
+        roundtrip("{\"a\":[],\"b\":{},\"c\":[1,2,3]}");
+        roundtrip("{\"x\":[[1,2],[true,false],{\"a\":\"b\"}]}");
+    }
+
+    @Test
+    public void testObjectLookup() 
+    {
+        final StringBuilder json = new StringBuilder("{");
+        for ( int i = 0 ; i < 20 ; i++ ) {
+            json.append( "\"key" ).append( i ).append( "\":" ).append( i ).append( ',' );
+        }
+        json.append( "\"key3\":\"dup\"}" );
+
+        final JSONObject tape = (JSONObject) new Parser().parseTape( json ).root();
+        Assert.assertEquals( "19" , tape.get( "key19" ).toString() );
+        Assert.assertEquals( "\"dup\"" , tape.get( "key3" ).toString() );
+        Assert.assertNull( tape.get( "key20" ) );
+    }
+
+    private void roundtrip(String s) 
+    {
+        final ASTPrinter printer = new ASTPrinter();
+        printer.setPrettyPrint( false );
+        Assert.assertEquals( s , printer.print( new Parser().parseTape( s ).root() ) );
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+import static org.junit.Assert.fail;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.Parser;
+import de.codesourcery.jsonparser.util.ASTPrinter;
+
+public class ImmutableASTTest
+{
+    private static final String JSON = "{\"a\":{\"b\":[1,2,3],\"c\":\"x\"},\"d\":{\"e\":true}}";
+
+    private String print(ASTNode node) 
+    {
+        final ASTPrinter printer = new ASTPrinter();
+        printer.setPrettyPrint( false );
+        return printer.print( node );
+    }
+
+    @Test
+    public void testFreeze() 
+    {
+        final ASTNode ast = new Parser().parse( JSON );
+        Assert.assertFalse( ImmutableAST.isFrozen( ast ) );
+
+        final ASTNode frozen = ImmutableAST.freeze( ast );
+        Assert.assertTrue( ImmutableAST.isFrozen( frozen ) );
+        Assert.assertSame( frozen , ImmutableAST.freeze( frozen ) );
+        Assert.assertEquals( JSON , print( frozen ) );
+        try {
+            ((JSONObject) frozen).add( new KeyValue( new StringLiteral( "x" ) , new NullLiteral() ) );
+            fail("Should've failed");
+        } catch(UnsupportedOperationException e) {
+            // ok
+        }
+        try {
+            frozen.child( 0 ).children().set( 1 , new NullLiteral() );
+            fail("Should've failed");
+        } catch(UnsupportedOperationException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testUpdates() 
+    {
+        final ASTNode root = ImmutableAST.freeze( new Parser().parse( JSON ) );
+        final ASTNode d = ((JSONObject) root).get( "d" );
+
+        final ASTNode r1 = ImmutableAST.set( root , new NumberLiteral( 42 ) , "a" , "b" , 1 );
+        Assert.assertEquals( "{\"a\":{\"b\":[1,42,3],\"c\":\"x\"},\"d\":{\"e\":true}}" , print( r1 ) );
+        Assert.assertEquals( JSON , print( root ) );
+        Assert.assertSame( d , ((JSONObject) r1).get( "d" ) );
+        Assert.assertSame( ((JSONObject) ((JSONObject) root).get( "a" )).get( "c" ) , ((JSONObject) ((JSONObject) r1).get( "a" )).get( "c" ) );
+
+        final ASTNode r2 = ImmutableAST.set( r1 , new Parser().parse( "{\"y\":[]}" ) , "a" , "new" );
+        Assert.assertEquals( "{\"a\":{\"b\":[1,42,3],\"c\":\"x\",\"new\":{\"y\":[]}},\"d\":{\"e\":true}}" , print( r2 ) );
+        Assert.assertTrue( ImmutableAST.isFrozen( ((JSONObject) ((JSONObject) r2).get( "a" )).get( "new" ) ) );
+
+        Assert.assertEquals( "{\"a\":{\"b\":[0,1,2,3,4],\"c\":\"x\"},\"d\":{\"e\":true}}" , 
+                print( ImmutableAST.insert( ImmutableAST.insert( root , new NumberLiteral( 0 ) , "a" , "b" , 0 ) , new NumberLiteral( 4 ) , "a" , "b" , 4 ) ) );
+        Assert.assertEquals( "{\"a\":{\"b\":[1,3]},\"d\":{\"e\":true}}" , 
+                print( ImmutableAST.remove( ImmutableAST.remove( root , "a" , "c" ) , "a" , "b" , 1 ) ) );
+        Assert.assertEquals( "[]" , print( ImmutableAST.set( root , new JSONArray() ) ) );
+    }
+
+    @Test
+    public void testInvalidPaths() 
+    {
+        final ASTNode root = new Parser().parse( JSON );
+        final Object[][] paths = { { "x" , "y" } , { "a" , 0 } , { "a" , "b" , "c" } , { "a" , "b" , 4 } , { "d" , "e" , "f" } };
+        for ( Object[] path : paths ) 
+        {
+            try {
+                ImmutableAST.set( root , new NullLiteral() , path );
+                fail("Should've failed");
+            } catch(IllegalArgumentException e) {
+                // ok
+            }
+        }
+        try {
+            ImmutableAST.remove( root , "a" , "b" , 3 );
+            fail("Should've failed");
+        } catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+}
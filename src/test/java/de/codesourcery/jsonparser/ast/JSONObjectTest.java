@@ -0,0 +1,66 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.Parser;
+
+public class JSONObjectTest
+{
+    @Test
+    public void testObjectLookup() 
+    {
+        final StringBuilder json = new StringBuilder("{");
+        for ( int i = 0 ; i < 20 ; i++ ) {
+            json.append( "\"key" ).append( i ).append( "\":" ).append( i ).append( ',' );
+        }
+        json.append( "\"key3\":\"dup\"}" );
+
+        final JSONObject small = (JSONObject) new Parser().parse( "{\"a\":1,\"b\":2,\"a\":3}" );
+        Assert.assertEquals( "3" , small.get( "a" ).toString() );
+        Assert.assertFalse( small.containsKey( "c" ) );
+
+        final JSONObject obj = (JSONObject) new Parser().parse( json.toString() );
+        Assert.assertEquals( "7" , obj.get( "key7" ).toString() );
+        Assert.assertEquals( "\"dup\"" , obj.get( "key3" ).toString() );
+        Assert.assertNull( obj.get( "key20" ) );
+        Assert.assertFalse( obj.containsKey( "x" ) );
+
+        for ( int i = 20 ; i < 100 ; i++ ) {
+            obj.add( new KeyValue( new StringLiteral( "key"+i ) , new NumberLiteral( i ) ) );
+        }
+        for ( int i = 0 ; i < 100 ; i++ ) {
+            Assert.assertTrue( obj.containsKey( "key"+i ) );
+        }
+        Assert.assertEquals( "99" , obj.get( "key99" ).toString() );
+
+        // index is updated by add(), duplicates added later win
+        for ( int i = 100 ; i < 200 ; i++ ) 
+        {
+            obj.add( new KeyValue( new StringLiteral( "key"+i ) , new NumberLiteral( i ) ) );
+            Assert.assertEquals( Integer.toString( i ) , obj.get( "key"+i ).toString() );
+        }
+        obj.add( Arrays.asList( new KeyValue( new StringLiteral( "key5" ) , new NumberLiteral( -5 ) ) , new KeyValue( new StringLiteral( "new" ) , new NumberLiteral( 0 ) ) ) );
+        Assert.assertEquals( "-5" , obj.get( "key5" ).toString() );
+        Assert.assertEquals( 202 , obj.indexOfKey( "new" ) );
+        obj.children.add( new KeyValue( new StringLiteral( "direct" ) , new NumberLiteral( 1 ) ) );
+        Assert.assertEquals( 203 , obj.indexOfKey( "direct" ) );
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.Identifier;
+import de.codesourcery.jsonparser.Parser;
+
+public class JavaViewTest
+{
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJavaViews() 
+    {
+        final String json = "{\"i\":[1,2,3],\"l\":[1,12345678901],\"d\":[1,2.5],\"s\":[\"a\",1,null],\"e\":[],\"o\":{\"x\":true},\"n\":null}";
+        final Map<String,Object> map = (Map<String,Object>) new Parser().parse( json ).asJavaObject();
+        Assert.assertEquals( 7 , map.size() );
+        Assert.assertArrayEquals( new int[] {1,2,3} , (int[]) map.get( "i" ) );
+        Assert.assertArrayEquals( new long[] {1,12345678901L} , (long[]) map.get( "l" ) );
+        Assert.assertArrayEquals( new double[] {1,2.5} , (double[]) map.get( "d" ) , 0 );
+        Assert.assertEquals( Arrays.asList( "a" , 1 , null ) , map.get( "s" ) );
+        Assert.assertEquals( Collections.emptyList() , map.get( "e" ) );
+        Assert.assertEquals( Collections.singletonMap( "x" , true ) , map.get( "o" ) );
+        Assert.assertTrue( map.containsKey( "n" ) );
+        Assert.assertNull( map.get( "n" ) );
+        Assert.assertFalse( map.containsKey( "z" ) );
+        Assert.assertEquals( Arrays.asList( "i" , "l" , "d" , "s" , "e" , "o" , "n" ) , new ArrayList<>( map.keySet() ) );
+        try {
+            map.put( "z" , 1 );
+            fail("Should've failed");
+        } catch(UnsupportedOperationException e) {
+            // ok
+        }
+
+        // duplicate keys appear once, with the last value
+        final Map<String,Object> dup = (Map<String,Object>) new Parser().parse( "{\"a\":1,\"b\":${p},\"a\":3}" ).asJavaObject();
+        Assert.assertEquals( 2 , dup.size() );
+        Assert.assertEquals( 3 , dup.get( "a" ) );
+        Assert.assertEquals( "p" , ((Identifier) dup.get( "b" )).name );
+        Assert.assertEquals( Collections.singletonMap( "a" , 3 ) , new Parser().parse( "{\"a\":1,\"a\":3}" ).asJavaObject() );
+        Assert.assertEquals( Arrays.asList( "b" , "a" ) , new ArrayList<>( dup.keySet() ) );
+
+        try {
+            new Parser().parse( json ).child( 0 ).asJavaObject();
+            fail("Should've failed");
+        } catch(IllegalArgumentException e) {
+            // ok
+        }
+    }
+}
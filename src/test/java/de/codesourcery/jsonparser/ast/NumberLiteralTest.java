@@ -0,0 +1,42 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+import static org.junit.Assert.fail;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NumberLiteralTest
+{
+    @Test
+    public void testInvalidDoubles() 
+    {
+        for ( double value : new double[] { Double.NaN , Double.POSITIVE_INFINITY , Double.NEGATIVE_INFINITY } ) 
+        {
+            try {
+                new NumberLiteral( value );
+                fail("Should've failed: "+value);
+            } catch(IllegalArgumentException e) {
+                // ok
+            }
+        }
+        Assert.assertEquals( Double.MAX_VALUE , new NumberLiteral( Double.MAX_VALUE ).doubleValue() , 0 );
+        Assert.assertEquals( "-0.0" , new NumberLiteral( -0.0 ).toString() );
+        // out of range literals keep their text
+        Assert.assertEquals( "1e400" , new NumberLiteral( Double.POSITIVE_INFINITY , "1e400" ).toString() );
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.ast;
+
+import static org.junit.Assert.fail;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.Identifier;
+import de.codesourcery.jsonparser.util.MyParseException;
+
+public class StringLiteralTest
+{
+    private static final Function<Identifier,String> RESOLVER = id -> id.name.equals( "b" ) ? null : id.name.toUpperCase();
+
+    @Test
+    public void testSubstitution() 
+    {
+        final StringLiteral literal = new StringLiteral( "${a} x\\\\${b}${c}\\n${a}" );
+        Assert.assertEquals( "A x\\\\${b}C\\nA" , literal.getSubstitutedValue( RESOLVER ) );
+        Assert.assertEquals( "A x\\\\${b}C\\nA" , literal.getSubstitutedValue( RESOLVER ) );
+
+        final StringBuilder buffer = new StringBuilder( "#" );
+        literal.appendSubstitutedValue( buffer , RESOLVER );
+        Assert.assertEquals( "#A x\\\\${b}C\\nA" , buffer.toString() );
+
+        final Set<String> names = new TreeSet<>();
+        literal.getPlaceholderNames().forEach( id -> names.add( id.name ) );
+        Assert.assertEquals( "[a, b, c]" , names.toString() );
+
+        final StringLiteral plain = new StringLiteral( "no placeholders" );
+        Assert.assertSame( plain.getValue() , plain.getSubstitutedValue( RESOLVER ) );
+        Assert.assertTrue( plain.getPlaceholderNames().isEmpty() );
+    }
+
+    @Test
+    public void testMalformedPlaceholders() 
+    {
+        final String[] values = { "a$b" , "a${" , "a${}" , "a${b-c}" , "a$" };
+        final int[] offsets = { 2 , 3 , 3 , 4 , 2 };
+        for ( int i = 0 ; i < values.length ; i++ ) 
+        {
+            try {
+                new StringLiteral( values[i] ).getSubstitutedValue( RESOLVER );
+                fail("Should've failed: "+values[i]);
+            } catch(MyParseException e) {
+                Assert.assertEquals( values[i] , offsets[i] , e.offset );
+            }
+        }
+    }
+}
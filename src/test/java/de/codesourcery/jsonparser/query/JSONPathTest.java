@@ -0,0 +1,114 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.query;
+
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.Parser;
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.util.MyParseException;
+
+public class JSONPathTest
+{
+    private static final String JSON = "{\"nodes\":{" +
+            "\"1\":{\"id\":1,\"dn\":\"Strength\",\"sd\":[\"+10 to Strength\",\"5% increased Damage\"],\"out\":[2,3]}," +
+            "\"2\":{\"id\":2,\"dn\":\"Dexterity\",\"sd\":[\"+10 to Dexterity\"],\"out\":[],\"ks\":true}," +
+            "\"3\":{\"id\":3,\"dn\":\"It's \\\"quoted\\\"\",\"sd\":[],\"out\":[1]}}," +
+            "\"max\":2}";
+
+    private final ASTNode ast = new Parser().parse( JSON );
+
+    private String query(String expression) 
+    {
+        final List<ASTNode> result = JSONPath.compile( expression ).evaluate( ast );
+        return result.stream().map( ASTNode::toString ).collect( Collectors.joining( "," ) );
+    }
+
+    @Test
+    public void testPaths() 
+    {
+        Assert.assertEquals( "JSONObject" , query( "$" ) );
+        Assert.assertEquals( "2" , query( "$.max" ) );
+        Assert.assertEquals( "\"+10 to Strength\",\"+10 to Dexterity\"" , query( "$.nodes.*.sd[0]" ) );
+        Assert.assertEquals( "\"5% increased Damage\",\"+10 to Dexterity\"" , query( "$.nodes.*.sd[-1]" ) );
+        Assert.assertEquals( "\"Strength\"" , query( "$['nodes']['1'].dn" ) );
+        Assert.assertEquals( "1,\"Strength\"" , query( "$.nodes.1['id','dn']" ) );
+        Assert.assertEquals( "2,3" , query( "$.nodes.1.out[*]" ) );
+        Assert.assertEquals( "2,3" , query( "$.nodes.1.out[0,1,5]" ) );
+        Assert.assertEquals( "3" , query( "$.nodes.1.out[1:]" ) );
+        Assert.assertEquals( "2" , query( "$.nodes.1.out[:-1]" ) );
+        Assert.assertEquals( "1,2,3" , query( "$..id" ) );
+        Assert.assertEquals( "2,1" , query( "$..out[0]" ) );
+        Assert.assertEquals( "" , query( "$.nodes.4.dn" ) );
+        Assert.assertNull( JSONPath.compile( "$.missing" ).first( ast ) );
+    }
+
+    @Test
+    public void testFilters() 
+    {
+        Assert.assertEquals( "2" , query( "$.nodes[?(@.ks)].id" ) );
+        Assert.assertEquals( "1,3" , query( "$.nodes[?(!@.ks)].id" ) );
+        Assert.assertEquals( "2,3" , query( "$.nodes[?(@.id >= 2)].id" ) );
+        Assert.assertEquals( "2" , query( "$.nodes[?(@.id == $.max)].id" ) );
+        Assert.assertEquals( "1,3" , query( "$.nodes[?(@.dn == 'Strength' || @.id > 2.5)].id" ) );
+        Assert.assertEquals( "3" , query( "$.nodes[?(@.dn == 'It\\'s \\\"quoted\\\"')].id" ) );
+        Assert.assertEquals( "2,3" , query( "$.nodes[?(@.id != 1 && (@.out[0] == 1 || @.ks == true))].id" ) );
+        Assert.assertEquals( "3" , query( "$.nodes.1.out[?(@ > 2)]" ) );
+        Assert.assertEquals( "" , query( "$.nodes[?(@.dn == 1)].id" ) );
+    }
+
+    @Test
+    public void testFilterValues() 
+    {
+        final ASTNode doc = new Parser().parse( "{\"a\":[-0.0,0.5,\"\\u0041\",\"B\\n\"]}" );
+        Assert.assertEquals( "-0.0" , JSONPath.compile( "$.a[?(@ == 0.0)]" ).first( doc ).toString() );
+        Assert.assertEquals( "\"\\u0041\"" , JSONPath.compile( "$.a[?(@ == 'A')]" ).first( doc ).toString() );
+        Assert.assertEquals( "\"B\\n\"" , JSONPath.compile( "$.a[?(@ > 'A')]" ).first( doc ).toString() );
+    }
+
+    @Test
+    public void testCaching() {
+        Assert.assertSame( JSONPath.compile( "$.nodes.*.sd[0]" ) , JSONPath.compile( "$.nodes.*.sd[0]" ) );
+
+        // frequently used expressions survive a flood of others
+        final JSONPath frequent = JSONPath.compile( "$.frequent" );
+        for ( int i = 0 ; i < 5000 ; i++ ) 
+        {
+            JSONPath.compile( "$.other"+i );
+            Assert.assertSame( frequent , JSONPath.compile( "$.frequent" ) );
+        }
+    }
+
+    @Test
+    public void testInvalidExpressions() 
+    {
+        for ( String expression : new String[] { "" , "nodes" , "$." , "$[" , "$[1" , "$['a" , "$[?(@.a ==)]" , "$[?(1 == 2)]" , "$.a b" } ) 
+        {
+            try {
+                JSONPath.compile( expression );
+                fail( "Should've failed: "+expression );
+            } catch(MyParseException e) {
+                // ok
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.Identifier;
+import de.codesourcery.jsonparser.Parser;
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+
+public class ASTPrinterTest
+{
+    private static String createJSON(int elements) 
+    {
+        final StringBuilder json = new StringBuilder("{\"items\":[");
+        for ( int i = 0 ; i < elements ; i++ ) 
+        {
+            if ( i > 0 ) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append( i ).append(",\"name\":\"n\\u00e4me ${x}\",\"value\":${y},\"tags\":[true,null,1.5]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    @Test
+    public void testStreaming() throws IOException 
+    {
+        final ASTNode ast = new Parser().parse( createJSON( 2000 ) );
+        final Function<Identifier,String> resolver = id -> id.name.equals( "x" ) ? "resolved" : null;
+        for ( boolean prettyPrint : new boolean[] { true, false } ) 
+        {
+            final ASTPrinter printer = new ASTPrinter();
+            printer.setPrettyPrint( prettyPrint );
+            final String expected = printer.print( ast , resolver );
+            Assert.assertTrue( expected.contains( "resolved" ) );
+
+            final StringWriter writer = new StringWriter();
+            printer.print( ast , writer , resolver );
+            Assert.assertEquals( expected , writer.toString() );
+
+            final StringBuilder builder = new StringBuilder();
+            printer.print( ast , builder , resolver );
+            Assert.assertEquals( expected , builder.toString() );
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            printer.print( ast , out , StandardCharsets.UTF_8 , resolver );
+            Assert.assertEquals( expected , new String( out.toByteArray() , StandardCharsets.UTF_8 ) );
+
+            Assert.assertEquals( printer.print( ast ) , printer.print( ast ) );
+        }
+    }
+
+    @Test
+    public void testUTF8Serializer() throws IOException 
+    {
+        final String json = createJSON( 2000 ).replace( "${y}" , "\"\\\\\\\"x\\u0041\u00e4\u20ac\ud83d\ude00\"" );
+        final ASTNode ast = new Parser().parse( json );
+        final Function<Identifier,String> resolver = id -> id.name.equals( "x" ) ? "resolved" : null;
+        final ASTPrinter printer = new ASTPrinter();
+        printer.setPrettyPrint( false );
+
+        final UTF8Serializer serializer = new UTF8Serializer();
+        serializer.serialize( ast , resolver );
+        final byte[] expected = printer.print( ast , resolver ).getBytes( StandardCharsets.UTF_8 );
+        Assert.assertArrayEquals( expected , serializer.toByteArray() );
+        Assert.assertEquals( expected.length , serializer.asByteBuffer().remaining() );
+
+        // characters that are not part of an escape sequence get escaped
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serialize( new StringLiteral( "a\"b\n\u0001\\" ) );
+        serializer.writeTo( out );
+        Assert.assertEquals( "\"a\\\"b\\n\\u0001\\\\\"" , new String( out.toByteArray() , StandardCharsets.UTF_8 ) );
+
+        // backslashes that do not start an escape sequence get escaped, even before a surrogate pair
+        serializer.serialize( new StringLiteral( "a\\\ud83d\ude00b\\x\\n\\u0041" ) );
+        Assert.assertEquals( "\"a\\\\\ud83d\ude00b\\\\x\\n\\u0041\"" , new String( serializer.toByteArray() , StandardCharsets.UTF_8 ) );
+    }
+}
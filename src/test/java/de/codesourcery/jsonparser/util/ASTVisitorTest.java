@@ -0,0 +1,86 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.Parser;
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.BooleanLiteral;
+import de.codesourcery.jsonparser.ast.JSONArray;
+import de.codesourcery.jsonparser.ast.JSONObject;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NullLiteral;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.PlaceholderExpression;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+
+public class ASTVisitorTest
+{
+    private static final class Recorder extends ASTVisitor 
+    {
+        private final StringBuilder types = new StringBuilder();
+
+        @Override
+        public void visit(BooleanLiteral node) { types.append( 'b' ); }
+
+        @Override
+        public void visit(JSONArray node) 
+        {
+            types.append( '[' );
+            visitChildren( node );
+        }
+
+        @Override
+        public void visit(JSONObject node) 
+        {
+            types.append( '{' );
+            visitChildren( node );
+        }
+
+        @Override
+        public void visit(KeyValue node) 
+        {
+            types.append( ':' );
+            visitChildren( node );
+        }
+
+        @Override
+        public void visit(NullLiteral node) { types.append( 'n' ); }
+
+        @Override
+        public void visit(NumberLiteral node) { types.append( '1' ); }
+
+        @Override
+        public void visit(PlaceholderExpression node) { types.append( '$' ); }
+
+        @Override
+        public void visit(StringLiteral node) { types.append( 's' ); }
+    }
+
+    @Test
+    public void testAccept() 
+    {
+        final ASTNode ast = new Parser().parse( "{\"a\":[1,\"x\",true,null,${y},{}]}" );
+        final Recorder viaAccept = new Recorder();
+        ast.accept( viaAccept );
+        final Recorder viaVisit = new Recorder();
+        viaVisit.visit( ast );
+        Assert.assertEquals( "{:s[1sbn${" , viaAccept.types.toString() );
+        Assert.assertEquals( viaVisit.types.toString() , viaAccept.types.toString() );
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.Parser;
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.NodeKind;
+import de.codesourcery.jsonparser.ast.NumberLiteral;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+
+public class ParallelASTVisitorTest
+{
+    private static String createJSON(int elements) 
+    {
+        final StringBuilder json = new StringBuilder("{\"items\":[");
+        for ( int i = 0 ; i < elements ; i++ ) 
+        {
+            if ( i > 0 ) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append( i ).append(",\"secret\":\"s").append( i ).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String print(ASTNode node) 
+    {
+        final ASTPrinter printer = new ASTPrinter();
+        printer.setPrettyPrint( false );
+        return printer.print( node );
+    }
+
+    @Test
+    public void testVisitor() 
+    {
+        final ASTNode ast = new Parser().parse( createJSON( 1000 ) );
+        final ParallelASTVisitor<Long> sum = new ParallelASTVisitor<Long>( ForkJoinPool.commonPool() , 16 ) 
+        {
+            @Override
+            protected Long identity() {
+                return 0L;
+            }
+
+            @Override
+            protected Long merge(Long left, Long right) {
+                return left + right;
+            }
+
+            @Override
+            protected Long visit(NumberLiteral node) {
+                return node.toNumber().longValue();
+            }
+        };
+        Assert.assertEquals( 999*1000/2 , sum.visit( ast ).longValue() );
+
+        final ParallelASTVisitor<String> concat = new ParallelASTVisitor<String>( ForkJoinPool.commonPool() , 2 ) 
+        {
+            @Override
+            protected String identity() {
+                return "";
+            }
+
+            @Override
+            protected String merge(String left, String right) {
+                return left + right;
+            }
+
+            @Override
+            protected String visit(StringLiteral node) {
+                return node.getValue();
+            }
+        };
+        Assert.assertEquals( "kabcdxe" , concat.visit( new Parser().parse( "{\"k\":[\"a\",[\"b\",\"c\",\"d\"],{\"x\":\"e\"}]}" ) ) );
+    }
+
+    @Test
+    public void testTransformer() 
+    {
+        final String json = createJSON( 1000 );
+        final ASTNode ast = new Parser().parse( json );
+        final ParallelASTTransformer redact = new ParallelASTTransformer( node -> 
+        {
+            if ( node.kind() == NodeKind.KEY_VALUE && ((KeyValue) node).key().rawEquals( "secret" ) ) {
+                return null;
+            }
+            return node;
+        }, ForkJoinPool.commonPool() , 16 );
+        final ASTNode result = redact.transform( ast );
+        Assert.assertEquals( createJSON( 1000 ).replaceAll( ",\"secret\":\"s[0-9]+\"" , "" ) , print( result ) );
+        Assert.assertEquals( json , print( ast ) );
+        Assert.assertNull( new ParallelASTTransformer( node -> null ).transform( ast ) );
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2017 Tobias Gierke <tobias.gierke@code-sourcery.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.codesourcery.jsonparser.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.codesourcery.jsonparser.JSONParsers;
+import de.codesourcery.jsonparser.ast.ASTNode;
+import de.codesourcery.jsonparser.ast.KeyValue;
+import de.codesourcery.jsonparser.ast.StringLiteral;
+
+public class StringPoolTest
+{
+    @Test
+    public void testStringPool() 
+    {
+        final StringPool pool = new StringPool( 16 , 5 );
+        final JSONParsers parsers = new JSONParsers( true , 10 , pool , true );
+        final ASTNode ast1 = parsers.parse( "{\"name\":\"short\",\"text\":\"longer text\"}" );
+        final ASTNode ast2 = parsers.parse( "{\"name\":\"short\",\"text\":\"longer text\"}" );
+
+        final KeyValue name1 = (KeyValue) ast1.child( 0 );
+        final KeyValue name2 = (KeyValue) ast2.child( 0 );
+        Assert.assertSame( name1.key().getValue() , name2.key().getValue() );
+        Assert.assertSame( ((StringLiteral) name1.value()).getValue() , ((StringLiteral) name2.value()).getValue() );
+
+        final KeyValue text1 = (KeyValue) ast1.child( 1 );
+        final KeyValue text2 = (KeyValue) ast2.child( 1 );
+        Assert.assertSame( text1.key().getValue() , text2.key().getValue() );
+        Assert.assertEquals( "longer text" , ((StringLiteral) text2.value()).getValue() );
+        Assert.assertNotSame( ((StringLiteral) text1.value()).getValue() , ((StringLiteral) text2.value()).getValue() );
+        Assert.assertSame( pool.get( "text" ) , text1.key().getValue() );
+    }
+}